@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.gluonhq.impl.maps;
+
+import com.gluonhq.maps.benchmarks.HeadlessFx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of finding the lower-zoom tile that covers a tile while it loads,
+ * when the closest loaded level is a number of levels above it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoveringBenchmark {
+
+    private static final int BASE_ZOOM = 10;
+    private static final int TILES = 256;
+
+    @Param({"1", "5"})
+    public int levels;
+
+    private BaseMap baseMap;
+    private int zoom;
+    private final long[] is = new long[TILES];
+    private final long[] js = new long[TILES];
+
+    @Setup
+    public void setup() throws InterruptedException {
+        baseMap = HeadlessFx.createMap(1280, 800);
+        baseMap.setZoom(BASE_ZOOM);
+        baseMap.setCenter(50.85, 4.35);
+        baseMap.layout();
+        // tiles at the zoom level of the queries, below the base tiles
+        zoom = BASE_ZOOM + levels;
+        long n = 1L << zoom;
+        long ci = (long) (n * (180 + 4.35) / 360);
+        long cj = (long) (n * (1 - Math.log(Math.tan(Math.toRadians(50.85)) + 1 / Math.cos(Math.toRadians(50.85))) / Math.PI) / 2);
+        // spread over the base tile around the center
+        long span = 1L << levels;
+        for (int k = 0; k < TILES; k++) {
+            is[k] = ci + (k % 16 - 8) * span / 16;
+            js[k] = cj + (k / 16 - 8) * span / 16;
+        }
+        if (baseMap.findCovering(zoom, is[0], js[0]) == null) {
+            throw new IllegalStateException("No covering tile at zoom " + BASE_ZOOM);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TILES)
+    public void findCovering(Blackhole blackhole) {
+        for (int k = 0; k < TILES; k++) {
+            blackhole.consume(baseMap.findCovering(zoom, is[k], js[k]));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.gluonhq.impl.maps;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups and updates of the tiles of a 64x64 block, in random order, in a
+ * {@link TileIndex} and in the boxed HashMap it replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TileIndexBenchmark {
+
+    private static final int SIDE = 64;
+    private static final int KEYS = SIDE * SIDE;
+
+    private final long[] keys = new long[KEYS];
+    private final TileIndex<Object> index = new TileIndex<>();
+    private final Map<Long, Object> map = new HashMap<>();
+
+    @Setup
+    public void setup() {
+        int zoom = 15;
+        long i0 = 16000, j0 = 10000;
+        for (int k = 0; k < KEYS; k++) {
+            keys[k] = ((long) zoom << 58) | ((i0 + k / SIDE) << 29) | (j0 + k % SIDE);
+        }
+        Random random = new Random(42);
+        for (int k = KEYS - 1; k > 0; k--) {
+            int other = random.nextInt(k + 1);
+            long key = keys[k];
+            keys[k] = keys[other];
+            keys[other] = key;
+        }
+        for (long key : keys) {
+            index.put(key, key);
+            map.put(key, key);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(KEYS)
+    public void tileIndexGet(Blackhole blackhole) {
+        for (long key : keys) {
+            blackhole.consume(index.get(key));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(KEYS)
+    public void hashMapGet(Blackhole blackhole) {
+        for (long key : keys) {
+            blackhole.consume(map.get(key));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(KEYS)
+    public void tileIndexRemovePut() {
+        for (long key : keys) {
+            index.put(key, index.remove(key));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(KEYS)
+    public void hashMapRemovePut() {
+        for (long key : keys) {
+            map.put(key, map.remove(key));
+        }
+    }
+}
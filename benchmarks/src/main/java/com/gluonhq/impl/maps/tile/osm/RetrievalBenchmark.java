@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.gluonhq.impl.maps.tile.osm;
+
+import com.gluonhq.maps.benchmarks.HeadlessFx;
+import com.gluonhq.maps.tile.TileRetriever;
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.ImageIO;
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end loads of tiles, from an in-process tile server that speaks
+ * HTTP/2 over cleartext (h2c) as well as HTTP/1.1, and answers after a given
+ * latency: the download, store and decode of tiles that aren't cached, and
+ * the read and decode of cached tiles. Every invocation loads a batch of
+ * tiles at the same time, like a map that is panned, so the scores are per
+ * tile.
+ * <p>
+ * The {@link CachedOsmTileRetriever} is measured with the directory and the
+ * packed store, and against the retrieval it replaced as a baseline, which
+ * downloads every tile with its own {@code URLConnection}, over HTTP/1.1.
+ * Either way, the number of downloads in flight is the same.
+ * <p>
+ * The retriever keeps its state in static fields, so every path is
+ * measured in its own fork.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RetrievalBenchmark {
+
+    private static final int BATCH = 64;
+    private static final int CACHED_TILES = 256;
+    private static final int CACHED_ZOOM = 17;
+    private static final int DOWNLOAD_ZOOM = 18;
+
+    @Param({"directory", "packed", "urlconnection"})
+    public String path;
+
+    // the time the server takes to answer, in milliseconds
+    @Param({"0", "20"})
+    public int latency;
+
+    @Param({"2", "8"})
+    public int downloads;
+
+    private Server server;
+    private ScheduledExecutorService delayer;
+    private final LongAdder http2Requests = new LongAdder();
+    private TileRetriever retriever;
+    private Path baselineRoot;
+    // the next tile to download, starting at a random place as the cache outlives the benchmark
+    private long download;
+    private int cached;
+
+    @Setup
+    public void setup() throws Exception {
+        HeadlessFx.startup();
+        byte[] png = createTile();
+        delayer = Executors.newScheduledThreadPool(4);
+        server = new Server();
+        HttpConfiguration config = new HttpConfiguration();
+        ServerConnector connector = new ServerConnector(server,
+                new HttpConnectionFactory(config), new HTTP2CServerConnectionFactory(config));
+        connector.setHost("127.0.0.1");
+        server.addConnector(connector);
+        server.setHandler(new AbstractHandler() {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request,
+                               HttpServletResponse response) throws IOException {
+                baseRequest.setHandled(true);
+                if ("HTTP/2.0".equals(request.getProtocol())) {
+                    http2Requests.increment();
+                }
+                if (latency == 0) {
+                    respond(response, png);
+                    return;
+                }
+                AsyncContext async = request.startAsync();
+                delayer.schedule(() -> {
+                    try {
+                        respond((HttpServletResponse) async.getResponse(), png);
+                    } catch (IOException e) {
+                        // the client went away
+                    } finally {
+                        async.complete();
+                    }
+                }, latency, TimeUnit.MILLISECONDS);
+            }
+        });
+        server.start();
+        System.setProperty(OsmTileRetriever.HOST_PROPERTY, "http://127.0.0.1:" + connector.getLocalPort() + "/");
+        System.setProperty(TileDownloadScheduler.THREADS_PROPERTY, Integer.toString(downloads));
+
+        if ("urlconnection".equals(path)) {
+            baselineRoot = Files.createTempDirectory("gluonmaps-baseline");
+            retriever = new UrlConnectionRetriever(baselineRoot, downloads);
+        } else {
+            System.setProperty(TileStore.STORE_PROPERTY, path);
+            retriever = new CachedOsmTileRetriever();
+        }
+        download = (System.nanoTime() & 0xFFFF) << 18;
+        // one at a time, so the client upgrades a single connection to h2c:
+        // concurrent upgrades on the connections of a new client can stall
+        for (int k = 0; k < CACHED_TILES; k++) {
+            retriever.loadTile(CACHED_ZOOM, k, 0).get(10, TimeUnit.SECONDS);
+        }
+        if (baselineRoot == null && http2Requests.sum() == 0) {
+            throw new IllegalStateException("The retriever didn't use HTTP/2");
+        }
+        // let the tiles be written to the store
+        Thread.sleep(1000);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        server.stop();
+        delayer.shutdown();
+        if (baselineRoot != null) {
+            try (Stream<Path> files = Files.walk(baselineRoot)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    private static void respond(HttpServletResponse response, byte[] png) throws IOException {
+        response.setContentType("image/png");
+        response.setHeader("Cache-Control", "max-age=86400");
+        response.setContentLength(png.length);
+        try (OutputStream out = response.getOutputStream()) {
+            out.write(png);
+        }
+    }
+
+    private static byte[] createTile() throws IOException {
+        BufferedImage image = new BufferedImage(256, 256, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < 256; y++) {
+            for (int x = 0; x < 256; x++) {
+                image.setRGB(x, y, 0xFF000000 | (x << 16) | (y << 8) | ((x ^ y) & 0xFF));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void download() throws Exception {
+        long n = 1L << DOWNLOAD_ZOOM;
+        CompletableFuture<?>[] loads = new CompletableFuture<?>[BATCH];
+        for (int k = 0; k < BATCH; k++) {
+            long tile = download++;
+            loads[k] = retriever.loadTile(DOWNLOAD_ZOOM, (tile / n) % n, tile % n);
+        }
+        CompletableFuture.allOf(loads).get(30, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void cached() throws Exception {
+        CompletableFuture<?>[] loads = new CompletableFuture<?>[BATCH];
+        for (int k = 0; k < BATCH; k++) {
+            loads[k] = retriever.loadTile(CACHED_ZOOM, cached++ % CACHED_TILES, 0);
+        }
+        CompletableFuture.allOf(loads).get(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * The retrieval that {@link CachedOsmTileRetriever} replaced: a fixed
+     * number of threads download the tiles, every tile with a new
+     * {@code URLConnection}, copy them to files with a 4 KB buffer, and decode
+     * those files. Cached tiles are decoded in the background by JavaFX.
+     */
+    private static final class UrlConnectionRetriever implements TileRetriever {
+
+        private final Path root;
+        private final ExecutorService executor;
+
+        UrlConnectionRetriever(Path root, int threads) {
+            this.root = root;
+            this.executor = Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        @Override
+        public CompletableFuture<Image> loadTile(int zoom, long i, long j) {
+            File file = root.resolve(zoom + File.separator + i + File.separator + j + ".png").toFile();
+            if (file.exists()) {
+                return decoded(new Image(file.toURI().toString(), true));
+            }
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    download(OsmTileRetriever.buildImageUrlString(zoom, i, j), file);
+                    try (InputStream in = new FileInputStream(file)) {
+                        return new Image(in);
+                    }
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        }
+
+        private static void download(String urlString, File file) throws IOException {
+            URLConnection connection = new URL(urlString).openConnection();
+            connection.addRequestProperty("User-Agent", OsmTileRetriever.httpAgent);
+            connection.setConnectTimeout(10000);
+            connection.setReadTimeout(10000);
+            try (InputStream in = connection.getInputStream()) {
+                file.getParentFile().mkdirs();
+                try (FileOutputStream out = new FileOutputStream(file)) {
+                    byte[] buffer = new byte[4096];
+                    int length;
+                    while ((length = in.read(buffer)) > 0) {
+                        out.write(buffer, 0, length);
+                    }
+                }
+            }
+        }
+
+        // completes when an image that loads in the background is decoded
+        private static CompletableFuture<Image> decoded(Image image) {
+            CompletableFuture<Image> result = new CompletableFuture<>();
+            Platform.runLater(() -> {
+                if (image.getProgress() >= 1 || image.isError()) {
+                    result.complete(image);
+                    return;
+                }
+                image.progressProperty().addListener((o, ov, nv) -> {
+                    if (nv.doubleValue() >= 1) {
+                        result.complete(image);
+                    }
+                });
+                image.errorProperty().addListener(o -> result.complete(image));
+            });
+            return result;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.gluonhq.impl.maps.tile.osm;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Reads of cached tiles from the directory and the packed tile stores. The
+ * tiles are read back right after they are written, so they are most likely
+ * in the page cache: this measures the overhead of the stores, rather than
+ * the disk.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TileStoreBenchmark {
+
+    private static final int TILES = 1024;
+    private static final int TILE_SIZE = 16 * 1024;
+    private static final int ZOOM = 15;
+
+    @Param({"directory", "packed"})
+    public String store;
+
+    private Path root;
+    private TileStore tileStore;
+    private final long[] is = new long[TILES];
+    private final long[] js = new long[TILES];
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        root = Files.createTempDirectory("tilestore-benchmark");
+        tileStore = "packed".equals(store) ? new PackedTileStore(root) : new DirectoryTileStore(root);
+        tileStore.open();
+        Random random = new Random(42);
+        byte[] data = new byte[TILE_SIZE];
+        TileMetadata metadata = new TileMetadata(null, null, Long.MAX_VALUE);
+        for (int k = 0; k < TILES; k++) {
+            is[k] = 16000 + k / 32;
+            js[k] = 10000 + k % 32;
+            random.nextBytes(data);
+            tileStore.write(ZOOM, is[k], js[k], data, metadata);
+        }
+        // read in random order
+        for (int k = TILES - 1; k > 0; k--) {
+            int other = random.nextInt(k + 1);
+            long i = is[k], j = js[k];
+            is[k] = is[other];
+            js[k] = js[other];
+            is[other] = i;
+            js[other] = j;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public byte[] read() throws IOException {
+        int k = next++ & (TILES - 1);
+        try (InputStream inputStream = tileStore.read(ZOOM, is[k], js[k])) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    @Benchmark
+    public boolean contains() {
+        int k = next++ & (TILES - 1);
+        return tileStore.contains(ZOOM, is[k], js[k]);
+    }
+}
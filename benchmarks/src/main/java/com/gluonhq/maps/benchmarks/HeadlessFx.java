@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.gluonhq.maps.benchmarks;
+
+import com.gluonhq.impl.maps.BaseMap;
+import com.gluonhq.maps.MapView;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Starts the JavaFX platform without a display, with the headless Monocle
+ * glass platform and the software pipeline, so the benchmarks can run on
+ * build machines.
+ * <p>
+ * A scene that isn't shown in a window can be changed from any thread, so
+ * the benchmarks drive the maps from their own threads, without the overhead
+ * of handing every operation to the JavaFX application thread.
+ */
+public final class HeadlessFx {
+
+    private static boolean started;
+
+    private HeadlessFx() {
+    }
+
+    public static synchronized void startup() throws InterruptedException {
+        if (started) {
+            return;
+        }
+        System.setProperty("glass.platform", "Monocle");
+        System.setProperty("monocle.platform", "Headless");
+        System.setProperty("prism.order", "sw");
+        System.setProperty("prism.text", "t2k");
+        System.setProperty("java.awt.headless", "true");
+        CountDownLatch latch = new CountDownLatch(1);
+        Platform.startup(latch::countDown);
+        latch.await();
+        started = true;
+    }
+
+    /**
+     * Creates a map view of the specified size, in a scene that isn't shown,
+     * and returns its map.
+     *
+     * @param width the width of the view
+     * @param height the height of the view
+     * @return the map
+     */
+    public static BaseMap createMap(double width, double height) throws InterruptedException {
+        startup();
+        MapView mapView = new MapView();
+        new Scene(mapView, width, height);
+        mapView.resize(width, height);
+        mapView.layout();
+        return mapView.getChildrenUnmodifiable().stream()
+                .filter(BaseMap.class::isInstance)
+                .map(BaseMap.class::cast)
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.gluonhq.maps.benchmarks;
+
+import com.gluonhq.impl.maps.BaseMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of a layout pass of a map after a pan or a zoom, which loads the
+ * tiles of the view with {@code BaseMap.loadTiles()} and removes the tiles
+ * that left it with {@code BaseMap.cleanupTiles()}. Tiles come from the
+ * {@link StubTileRetriever}, so they are available right away.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoadTilesBenchmark {
+
+    private static final double WIDTH = 1280;
+    private static final double HEIGHT = 800;
+    private static final double LAT = 50.85;
+    private static final double LON = 4.35;
+    // the number of steps of a pan across the map, before it starts over
+    private static final int PAN_STEPS = 2000;
+
+    private BaseMap baseMap;
+    private int step;
+    private double zoomDelta;
+
+    @Setup
+    public void setup() throws InterruptedException {
+        baseMap = HeadlessFx.createMap(WIDTH, HEIGHT);
+        baseMap.setZoom(14);
+        baseMap.setCenter(LAT, LON);
+        baseMap.layout();
+        zoomDelta = 0.25;
+    }
+
+    /**
+     * Pans along a circle smaller than the view, so the map only needs the
+     * tiles it already has.
+     */
+    @Benchmark
+    public void panWithinView() {
+        double angle = 2 * Math.PI * (step++ % 64) / 64;
+        baseMap.move(20 * Math.cos(angle), 20 * Math.sin(angle));
+        baseMap.layout();
+    }
+
+    /**
+     * Pans in one direction, so new tiles enter the view and others leave
+     * it. Every PAN_STEPS steps, the map jumps back to where it started.
+     */
+    @Benchmark
+    public void panAcross() {
+        if (++step % PAN_STEPS == 0) {
+            baseMap.setCenter(LAT + step * 1e-9, LON);
+        }
+        baseMap.move(32, 8);
+        baseMap.layout();
+    }
+
+    /**
+     * Zooms in and out around the center of the view, a quarter of a level
+     * at a time, between zoom levels 12 and 16.
+     */
+    @Benchmark
+    public void zoomInOut() {
+        double zoom = baseMap.zoom().get();
+        if (zoom + zoomDelta > 16 || zoom + zoomDelta < 12) {
+            zoomDelta = -zoomDelta;
+        }
+        baseMap.zoom(zoomDelta, WIDTH / 2, HEIGHT / 2);
+        baseMap.layout();
+    }
+}
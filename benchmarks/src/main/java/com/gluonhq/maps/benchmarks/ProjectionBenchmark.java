@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.gluonhq.maps.benchmarks;
+
+import com.gluonhq.impl.maps.BaseMap;
+import com.gluonhq.impl.maps.Mercator;
+import javafx.geometry.Point2D;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of projecting a point from geographic to pixel coordinates, one
+ * at a time with {@link BaseMap#getMapPoint(double, double)}, in batches with
+ * {@link BaseMap#getMapPoints(double[], double[], double[], double[])}, and
+ * from cached Mercator coordinates, as layers do after a pan or zoom.
+ * <p>
+ * The scores are the time to project all points. With a million points, the
+ * arrays no longer fit in the CPU caches, so memory bandwidth starts to
+ * matter.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProjectionBenchmark {
+
+    @Param({"1000", "1000000"})
+    private int points;
+
+    private BaseMap baseMap;
+    private double[] lats;
+    private double[] lons;
+    private double[] xs;
+    private double[] ys;
+    private double[] outX;
+    private double[] outY;
+
+    @Setup
+    public void setup() throws InterruptedException {
+        baseMap = HeadlessFx.createMap(1280, 800);
+        baseMap.setZoom(12);
+        baseMap.setCenter(50.85, 4.35);
+        lats = new double[points];
+        lons = new double[points];
+        xs = new double[points];
+        ys = new double[points];
+        outX = new double[points];
+        outY = new double[points];
+        Random random = new Random(42);
+        for (int k = 0; k < points; k++) {
+            lats[k] = 50.85 + random.nextDouble() - 0.5;
+            lons[k] = 4.35 + random.nextDouble() - 0.5;
+        }
+        Mercator.toMercator(lats, lons, xs, ys, points);
+    }
+
+    @Benchmark
+    public void getMapPoint(Blackhole blackhole) {
+        for (int k = 0; k < points; k++) {
+            Point2D point = baseMap.getMapPoint(lats[k], lons[k]);
+            blackhole.consume(point);
+        }
+    }
+
+    @Benchmark
+    public double[] getMapPoints() {
+        baseMap.getMapPoints(lats, lons, outX, outY);
+        return outX;
+    }
+
+    @Benchmark
+    public double[] projectMercator() {
+        baseMap.projectMercator(xs, ys, outX, outY);
+        return outX;
+    }
+}
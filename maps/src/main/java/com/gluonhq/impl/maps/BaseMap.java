@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016, Gluon
+ * Copyright (c) 2016, 2026, Gluon
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -27,8 +27,11 @@
  */
 package com.gluonhq.impl.maps;
 
+import com.gluonhq.impl.maps.jfr.TileEvents;
 import com.gluonhq.maps.MapPoint;
 import com.gluonhq.maps.MapView;
+import com.gluonhq.maps.tile.TileCacheStatistics;
+import com.gluonhq.maps.tile.TileMetricsRecorder;
 import javafx.application.Platform;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.SimpleDoubleProperty;
@@ -37,12 +40,12 @@ import javafx.collections.ObservableList;
 import javafx.geometry.Point2D;
 import javafx.scene.Group;
 import javafx.scene.Node;
-import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.shape.Rectangle;
+import javafx.scene.transform.Scale;
 
-import java.lang.ref.SoftReference;
 import java.util.*;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import static java.lang.Math.ceil;
@@ -66,10 +69,44 @@ public class BaseMap extends Group {
     public static final double TIPPING = 0.2;
 
     /**
-     * The maximum zoom level this map supports.
+     * The system property that sets the maximum zoom level of the maps, 20
+     * by default.
      */
-    public static final int MAX_ZOOM = 20;
-    private final Map<Long, SoftReference<MapTile>>[] tiles = new HashMap[MAX_ZOOM];
+    static final String MAX_ZOOM_PROPERTY = "com.gluonhq.maps.maxZoom";
+    private static final int DEFAULT_MAX_ZOOM = 20;
+    // the tile key has room for zoom levels up to 28
+    private static final int LIMIT_ZOOM = 28;
+
+    /**
+     * The maximum zoom level this map supports. It is set with the system
+     * property <code>com.gluonhq.maps.maxZoom</code>, and can exceed the
+     * highest zoom level the tile source has tiles for: the tiles of that
+     * level are then scaled up, without loading any other tiles.
+     */
+    public static final int MAX_ZOOM = maxZoomFromProperty();
+
+    // the highest zoom level of the tiles that are loaded
+    private final int maxTileZoom = Math.min(MAX_ZOOM - 1, TileImageView.getMaxZoom());
+    private final TileCache tiles = new TileCache(MAX_ZOOM, TileCache.DEFAULT_CAPACITY);
+    private final TilePrefetcher prefetcher = new TilePrefetcher(tiles, maxTileZoom + 1);
+
+    // One container per zoom level, in ascending order, so more detailed tiles
+    // are rendered on top of the tiles that are covering for them. Only the
+    // containers are scaled when the zoom changes, panning just translates
+    // this map.
+    private final Group[] levels = new Group[MAX_ZOOM];
+    private final Scale[] levelScales = new Scale[MAX_ZOOM];
+    private double levelZoom = Double.NaN;
+    private int levelVisibleZoom = -1;
+    // the viewport last sent to the tile retriever
+    private int viewportZoom = -1;
+    private double viewportI, viewportJ;
+    // the range of the tiles added by the last layout, at the nearest zoom
+    private int loadedZoom = -1;
+    private long loadedIMin, loadedIMax, loadedJMin, loadedJMax;
+    // tiles stay in the scene until they are this many tiles out of the loaded range,
+    // so dragging back and forth doesn't remove and add them again
+    private static final int KEEP_MARGIN = 1;
 
     private double lat;
     private double lon;
@@ -91,14 +128,19 @@ public class BaseMap extends Group {
 
     public double x0, y0;
     private boolean dirty = true;
+    // reused by cleanupTiles, so no list is created on every pulse
+    private final List<MapTile> tilesToRemove = new ArrayList<>();
 
     private final ChangeListener<Number> resizeListener = (o, oldValue, newValue) -> markDirty();
     private ChangeListener<Scene> sceneListener;   
 
     public BaseMap() {
-        for (int i = 0; i < tiles.length; i++) {
-            tiles[i] = new HashMap<>();
+        for (int i = 0; i < MAX_ZOOM; i++) {
+            levelScales[i] = new Scale(1, 1, 0, 0);
+            levels[i] = new Group();
+            levels[i].getTransforms().add(levelScales[i]);
         }
+        getChildren().addAll(levels);
         area = new Rectangle(-10, -10, 810, 610);
         area.setVisible(false);
        
@@ -130,6 +172,22 @@ public class BaseMap extends Group {
         this.sceneProperty().addListener(sceneListener);
     }
     
+    private static int maxZoomFromProperty() {
+        String value = System.getProperty(MAX_ZOOM_PROPERTY);
+        if (value != null) {
+            try {
+                int zoom = Integer.parseInt(value.trim());
+                if (zoom >= 1 && zoom <= LIMIT_ZOOM) {
+                    return zoom;
+                }
+            } catch (NumberFormatException e) {
+                // fall through to the default
+            }
+            logger.warning("Invalid value for " + MAX_ZOOM_PROPERTY + ": " + value);
+        }
+        return DEFAULT_MAX_ZOOM;
+    }
+
     /**
      * Move the center of this map to the specified coordinates
      * @param lat the latitude of the new center
@@ -167,7 +225,9 @@ public class BaseMap extends Group {
         double tty = mey - this.getMyHeight() / 2;
         setTranslateX(-1 * ttx);
         setTranslateY(-1 * tty);
-        logger.config("setCenter, tx = " + this.getTranslateX() + ", with = " + this.getMyWidth() / 2 + ", mex = " + mex);
+        if (logger.isLoggable(Level.CONFIG)) {
+            logger.config("setCenter, tx = " + this.getTranslateX() + ", with = " + this.getMyWidth() / 2 + ", mex = " + mex);
+        }
 
         markDirty();
     }
@@ -179,7 +239,7 @@ public class BaseMap extends Group {
      * @param dx the number of pixels
      */
     public void moveX(double dx) {
-        setTranslateX(getTranslateX() - dx);
+        doMoveX(dx);
         markDirty();
     }
 
@@ -190,9 +250,34 @@ public class BaseMap extends Group {
      * @param dy the number of pixels
      */
     public void moveY(double dy) {
+        doMoveY(dy);
+        markDirty();
+    }
+
+    /**
+     * Move the center of the map by a number of pixels in both directions.
+     * This is equivalent to calling {@link #moveX(double)} and
+     * {@link #moveY(double)}, but the map is only marked dirty once.
+     *
+     * @param dx the number of pixels in the horizontal direction
+     * @param dy the number of pixels in the vertical direction
+     */
+    public void move(double dx, double dy) {
+        doMoveX(dx);
+        doMoveY(dy);
+        markDirty();
+    }
+
+    private void doMoveX(double dx) {
+        setTranslateX(getTranslateX() - dx);
+    }
+
+    private void doMoveY(double dy) {
         double z = zoom.get();
         double maxty = 256 * Math.pow(2, z) - getMyHeight();
-        logger.config("ty = " + getTranslateY() + " and dy = " + dy);
+        if (logger.isLoggable(Level.CONFIG)) {
+            logger.config("ty = " + getTranslateY() + " and dy = " + dy);
+        }
         if (getTranslateY() <= 0) {
             if (getTranslateY() + maxty >= 0) {
                 setTranslateY(Math.min(0, getTranslateY() - dy));
@@ -202,7 +287,6 @@ public class BaseMap extends Group {
         } else {
             setTranslateY(0);
         }
-        markDirty();
     }
 
     /**
@@ -238,7 +322,9 @@ public class BaseMap extends Group {
     public void zoom(double delta, double pivotX, double pivotY) {
         double dz = delta;// > 0 ? .1 : -.1;
         double zp = zoom.get();
-        logger.fine("Zoom called, zp = " + zp + ", delta = " + delta + ", px = " + pivotX + ", py = " + pivotY);
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("Zoom called, zp = " + zp + ", delta = " + delta + ", px = " + pivotX + ", py = " + pivotY);
+        }
         double txold = getTranslateX();
         double t1x = pivotX - getTranslateX();
         double t2x = 1. - Math.pow(2, dz);
@@ -247,7 +333,9 @@ public class BaseMap extends Group {
         double t1y = pivotY - tyold;
         double t2y = 1. - Math.pow(2, dz);
         double totY = t1y * t2y;
-        logger.fine("zp = " + zp + ", txold = " + txold + ", totx = " + totX + ", tyold = " + tyold + ", toty = " + totY);
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("zp = " + zp + ", txold = " + txold + ", totx = " + totX + ", tyold = " + tyold + ", toty = " + totY);
+        }
         if ((delta > 0)) {
             if (zp < MAX_ZOOM) {
                 setTranslateX(txold + totX);
@@ -267,16 +355,17 @@ public class BaseMap extends Group {
                 logger.warning("sorry, would be too small");
             }
         }
-        logger.fine("after, zp = " + zoom.get() + ", tx = " + getTranslateX());
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("after, zp = " + zoom.get() + ", tx = " + getTranslateX());
+        }
     }
 
 
 
     public MapPoint getMapPosition(double sceneX, double sceneY) {
-        final SimpleDoubleProperty _lat = new SimpleDoubleProperty();
-        final SimpleDoubleProperty _lon = new SimpleDoubleProperty();
-        calculateCoords(sceneX - getTranslateX(), sceneY - getTranslateY(), _lat, _lon);  
-        return new MapPoint(_lat.get(), _lon.get());
+        double x = sceneX - getTranslateX();
+        double y = sceneY - getTranslateY();
+        return new MapPoint(calculateLat(y), calculateLon(x));
     }
     
     public Point2D getMapPoint(double lat, double lon) {
@@ -301,6 +390,51 @@ public class BaseMap extends Group {
         return answer;
     }
 
+    /**
+     * Projects many geographic coordinates to pixel coordinates at once. This
+     * returns the same values as {@link #getMapPoint(double, double)}, but the
+     * zoom-dependent constants are computed once, and no Point2D is created
+     * per point.
+     *
+     * @param lats the latitudes
+     * @param lons the longitudes
+     * @param outX receives the x coordinates in pixels
+     * @param outY receives the y coordinates in pixels
+     * @return false if the map isn't showing yet, in which case the output
+     * arrays are unchanged
+     */
+    public boolean getMapPoints(double[] lats, double[] lons, double[] outX, double[] outY) {
+        if (this.getScene() == null) {
+            return false;
+        }
+        Mercator.toMercator(lats, lons, outX, outY, lats.length);
+        projectMercator(outX, outY, outX, outY);
+        return true;
+    }
+
+    /**
+     * Projects normalized Mercator coordinates, as returned by
+     * {@link Mercator#toMercator(double[], double[], double[], double[], int)},
+     * to pixel coordinates. Layers that cache the Mercator coordinates of
+     * their points only need a multiply-add per coordinate after a pan or
+     * zoom.
+     *
+     * @param xs the normalized x coordinates
+     * @param ys the normalized y coordinates
+     * @param outX receives the x coordinates in pixels
+     * @param outY receives the y coordinates in pixels
+     * @return false if the map isn't showing yet, in which case the output
+     * arrays are unchanged
+     */
+    public boolean projectMercator(double[] xs, double[] ys, double[] outX, double[] outY) {
+        if (this.getScene() == null) {
+            return false;
+        }
+        double scale = 256 * Math.pow(2, zoom.get());
+        Mercator.project(xs, ys, outX, outY, xs.length, scale, getTranslateX(), getTranslateY());
+        return true;
+    }
+
     public ReadOnlyDoubleProperty centerLon() {
         return centerLon.getReadOnlyProperty();
     }
@@ -320,14 +454,38 @@ public class BaseMap extends Group {
     public DoubleProperty prefCenterLat() {
         return prefCenterLat;
     }
+
+    /**
+     * Returns the maximum number of bytes the decoded tiles of this map can use
+     * @return the capacity of the tile cache in bytes
+     */
+    public long getTileCacheCapacity() {
+        return tiles.getCapacity();
+    }
+
+    /**
+     * Sets the maximum number of bytes the decoded tiles of this map can use.
+     * Tiles that are currently shown are never evicted, so the cache can
+     * temporarily exceed this capacity.
+     * @param capacity the capacity of the tile cache in bytes
+     */
+    public void setTileCacheCapacity(long capacity) {
+        tiles.setCapacity(capacity);
+    }
+
+    public TileCacheStatistics getTileCacheStatistics() {
+        return tiles.getStatistics();
+    }
     
-    private final void loadTiles() {
+    // returns the number of tiles in the view
+    private final int loadTiles() {
         logger.fine("[JVDBG] loadTiles");
         if (getScene() == null) {
             logger.fine("[JVDBG] can't load tiles, scene null");
-            return;
+            return 0;
         }
-        int nearestZoom = (Math.min((int) floor(zoom.get() + TIPPING), MAX_ZOOM - 1));
+        TileEvents.Span span = TileEvents.begin(TileEvents.Phase.LOAD_TILES);
+        int nearestZoom = Math.min((int) floor(zoom.get() + TIPPING), maxTileZoom);
         double activeZoom = zoom.get();
         double deltaZ = nearestZoom - activeZoom;
         long i_max = 1 << nearestZoom;
@@ -340,47 +498,156 @@ public class BaseMap extends Group {
         long jmin = Math.max(0, (long) (-ty * Math.pow(2, deltaZ) / 256));
         long imax = Math.min(i_max, imin + (long) (width * Math.pow(2, deltaZ) / 256) + 3);
         long jmax = Math.min(j_max, jmin + (long) (height * Math.pow(2, deltaZ) / 256) + 3);
-        logger.fine("Zoom = " + nearestZoom + ", active = " + activeZoom + ", tx = " + tx + ", loadtiles, check i-range: " + imin + ", " + imax + " and j-range: " + jmin + ", " + jmax);
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("Zoom = " + nearestZoom + ", active = " + activeZoom + ", tx = " + tx + ", loadtiles, check i-range: " + imin + ", " + imax + " and j-range: " + jmin + ", " + jmax);
+        }
         for (long i = imin; i < imax; i++) {
             for (long j = jmin; j < jmax; j++) {
-                Long key = i * i_max + j;
-                SoftReference<MapTile> ref = tiles[nearestZoom].get(key);
-                if ((ref == null) || (ref.get() == null)) {
-                    if (ref != null) {
-                        logger.fine("RECLAIMED: z=" + nearestZoom + ",i=" + i + ",j=" + j);
+                MapTile tile = tiles.get(nearestZoom, i, j);
+                MapTile failed = null;
+                if (tile != null && tile.isFailed() && (tile.getParent() == null || tile.isDropped())) {
+                    // retry a tile that failed, once it comes back into view, or right
+                    // away if the retriever dropped it while it is shown
+                    tiles.remove(tile);
+                    if (tile.getParent() != null) {
+                        levels[nearestZoom].getChildren().remove(tile);
+                    }
+                    failed = tile;
+                    tile = null;
+                }
+                if (tile == null) {
+                    tile = new MapTile(this, nearestZoom, i, j);
+                    tiles.put(tile);
+                    if (failed != null) {
+                        failed.handOverWaiting(tile);
+                        failed.cancel();
                     }
-                    MapTile tile = new MapTile(this, nearestZoom, i, j);
-                    tiles[nearestZoom].put(key, new SoftReference<>(tile));
                     MapTile covering = getCoveringTile(tile);
                     if (covering != null) {
                         covering.addCovering(tile);
-                        if (!getChildren().contains(covering)) {
-                            getChildren().add(covering);
-                        }
+                        showTile(covering);
                     }
 
-                    getChildren().add(tile);
+                    showTile(tile);
                 } else {
-                    MapTile tile = ref.get();
-                    if (!getChildren().contains(tile)) {
-                        getChildren().add(tile);
-                    }
+                    showTile(tile);
                 }
             }
         }
+        // the center of the view, in tiles at the nearest zoom
+        double scale = Math.pow(2, deltaZ) / 256;
+        double centerI = (width / 2 - tx) * scale;
+        double centerJ = (height / 2 - ty) * scale;
+        // only when it changed, so retrying the tiles that another map made the
+        // retriever drop doesn't make it drop the tiles of that map in turn
+        if (nearestZoom != viewportZoom || centerI != viewportI || centerJ != viewportJ) {
+            viewportZoom = nearestZoom;
+            viewportI = centerI;
+            viewportJ = centerJ;
+            TileImageView.setViewport(nearestZoom, centerI, centerJ);
+        }
+        loadedZoom = nearestZoom;
+        loadedIMin = imin;
+        loadedIMax = imax;
+        loadedJMin = jmin;
+        loadedJMax = jmax;
+        int tileCount = (int) (Math.max(0, imax - imin) * Math.max(0, jmax - jmin));
+        if (span != null) {
+            span.zoom(nearestZoom).count(tileCount).commit();
+        }
         //   calculateCenterCoords();
         cleanupTiles();
+        tiles.trim();
+        prefetcher.update(activeZoom, nearestZoom, tx, ty, width, height);
+        return tileCount;
+    }
+
+    /**
+     * Hints that the map will soon be centered on the specified point, for
+     * instance at the end of an animation, so the tiles around it can be
+     * downloaded into the cache ahead of time.
+     *
+     * @param lat the latitude of the point
+     * @param lon the longitude of the point
+     */
+    public void prefetchCenter(double lat, double lon) {
+        if (getScene() == null) {
+            return;
+        }
+        int nearestZoom = Math.min((int) floor(zoom.get() + TIPPING), maxTileZoom);
+        double n = Math.pow(2, nearestZoom);
+        double lat_rad = Math.PI * lat / 180;
+        double id = n / 360. * (180 + lon);
+        double jd = n * (1 - (Math.log(Math.tan(lat_rad) + 1 / Math.cos(lat_rad)) / Math.PI)) / 2;
+        double scale = Math.pow(2, nearestZoom - zoom.get()) / 256;
+        prefetcher.prefetchView(nearestZoom, id, jd, getMyWidth() * scale, getMyHeight() * scale);
+    }
+
+    private void showTile(MapTile tile) {
+        Group level = levels[tile.getZoomLevel()];
+        if (tile.getParent() != level) {
+            level.getChildren().add(tile);
+        }
     }
 
     /**
-     * Find the "nearest" lower-zoom tile that covers a specific tile. This is
-     * used to find out what tile we have to show while a new tile is still
-     * loading
+     * Returns the zoom level of the tiles that are currently rendered.
+     *
+     * @return the visible zoom level
+     */
+    int getVisibleZoom() {
+        return (int) floor(zoom.get() + TIPPING);
+    }
+
+    /**
+     * Returns the highest zoom level of the tiles that are loaded. Beyond
+     * it, the tiles of this level are shown, scaled up.
+     *
+     * @return the highest zoom level with tiles
+     */
+    int getMaxTileZoom() {
+        return maxTileZoom;
+    }
+
+    /**
+     * Scales the container of every zoom level to the current zoom. When the
+     * visible zoom level changes, the visibility of the tiles is updated as
+     * well. Panning doesn't affect the levels, so this is a no-op while the
+     * map is being dragged.
+     */
+    private void updateLevels() {
+        double zp = zoom.get();
+        if (zp == levelZoom) {
+            return;
+        }
+        levelZoom = zp;
+        for (int i = 0; i < MAX_ZOOM; i++) {
+            double sf = Math.pow(2, zp - i);
+            levelScales[i].setX(sf);
+            levelScales[i].setY(sf);
+        }
+        int visibleZoom = getVisibleZoom();
+        if (visibleZoom != levelVisibleZoom) {
+            levelVisibleZoom = visibleZoom;
+            for (Group level : levels) {
+                ObservableList<Node> children = level.getChildren();
+                for (int c = 0; c < children.size(); c++) {
+                    ((MapTile) children.get(c)).updateVisibility(visibleZoom);
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the "nearest" lower-zoom tile that covers a specific tile and has
+     * an image. This is used to find out what tile we have to show when a
+     * tile couldn't be loaded. If the nearest cached ancestor shows the image
+     * of its own ancestor, that ancestor is returned.
      *
      * @param zoom
      * @param i
      * @param j
-     * @return the lower-zoom tile which covers the specified tile
+     * @return the lower-zoom tile which covers the specified tile, or null
      */
     protected MapTile findCovering(int zoom, long i, long j) {
         while (zoom > 0) {
@@ -388,13 +655,91 @@ public class BaseMap extends Group {
             i = i / 2;
             j = j / 2;
             MapTile candidate = findTile(zoom, i, j);
-            if ((candidate != null) && (!candidate.loading())) {
-                return candidate;
+            if ((candidate != null) && (candidate.getImageSource() != null)) {
+                return candidate.getImageSource();
             }
         }
         return null;
     }
 
+    /**
+     * Called when the image of a tile couldn't be loaded, for instance while
+     * offline, or because the tile source has no such tile. The tile then
+     * shows the part of the image of its nearest ancestor that covers it,
+     * scaled up. If no ancestor with an image is cached, the parent is
+     * loaded, which falls back to its own ancestors in turn if it can't be
+     * loaded either, so the tile ends up with the deepest ancestor that is
+     * available, in the disk cache for instance.
+     * <p>
+     * While it waits, the tile is registered with the ancestor it waits for,
+     * which the tile cache then doesn't evict. If that ancestor is cancelled,
+     * it falls back to its own ancestors in turn, taking the tiles that wait
+     * for it along, and if the retriever drops its load, it is loaded again.
+     * A cancelled parent that is found in the cache is loaded again as well.
+     * The tile keeps its placeholder only when no ancestor up to zoom level 0
+     * can be loaded.
+     *
+     * @param tile the tile that failed to load, or an ancestor that others
+     *             wait for and whose load was cancelled
+     */
+    void showFallback(MapTile tile) {
+        MapTile ancestor = findCovering(tile.myZoom, tile.i, tile.j);
+        if (ancestor != null) {
+            tile.showAncestor(ancestor);
+            return;
+        }
+        if (tile.myZoom == 0) {
+            return;
+        }
+        MapTile parent = tiles.peek(tile.myZoom - 1, tile.i / 2, tile.j / 2);
+        if (parent == null) {
+            // it is only loaded to provide an image, it isn't shown
+            parent = new MapTile(this, tile.myZoom - 1, tile.i / 2, tile.j / 2);
+            tiles.put(parent);
+        } else if (parent.isCancelled() && parent.getParent() == null) {
+            parent = reload(parent);
+        } else if (parent.isFailed() && parent.getImageSource() == null && !parent.isResolving()) {
+            // none of the ancestors of the parent is available
+            return;
+        }
+        parent.addWaiting(tile);
+    }
+
+    /**
+     * Called when a tile was loaded or failed to load, so the tile cache
+     * charges it for its actual image.
+     *
+     * @param tile the tile
+     */
+    void resizeTile(MapTile tile) {
+        tiles.resize(tile);
+    }
+
+    /**
+     * Called when the retriever dropped the load of a tile on its own, for
+     * instance because another map took over its viewport. If the tile is
+     * still shown, the tiles are loaded again, which retries it. A tile that
+     * isn't shown is retried if other tiles wait for it to fall back to.
+     *
+     * @param tile the tile whose load was dropped
+     */
+    void retryDropped(MapTile tile) {
+        if (tile.getParent() != null) {
+            markDirty();
+        } else if (tile.hasWaiting()) {
+            reload(tile);
+        }
+    }
+
+    // loads a cached tile that isn't shown again, the tiles that wait for it wait for the new one
+    private MapTile reload(MapTile tile) {
+        MapTile retry = new MapTile(this, tile.myZoom, tile.i, tile.j);
+        tiles.put(retry);
+        tile.handOverWaiting(retry);
+        tile.cancel();
+        return retry;
+    }
+
     /**
      * Return a specific tile
      *
@@ -404,59 +749,97 @@ public class BaseMap extends Group {
      * @return the tile, only if it is still in the cache
      */
     private MapTile findTile(int zoom, long i, long j) {
-        Long key = i * (1 << zoom) + j;
-        SoftReference<MapTile> exists = tiles[zoom].get(key);
-        return (exists == null) ? null : exists.get();
+        return tiles.peek(zoom, i, j);
     }
 
     private void cleanupTiles() {
-        logger.fine("START CLEANUP, zp = " + zoom.get());
+        boolean fine = logger.isLoggable(Level.FINE);
+        if (fine) {
+            logger.fine("START CLEANUP, zp = " + zoom.get());
+        }
+        TileEvents.Span span = TileEvents.begin(TileEvents.Phase.CLEANUP_TILES);
+        int removed = 0;
         double zp = zoom.get();
-        List<MapTile> toRemove = new LinkedList<>();
-        Parent parent = this.getParent();
-        ObservableList<Node> children = this.getChildren();
-        for (Node child : children) {
-            if (child instanceof MapTile) {
-                MapTile tile = (MapTile) child;
-                boolean intersects = tile.getBoundsInParent().intersects(area.getBoundsInParent());
-                logger.fine("evaluate tile " + tile + ", is = " + intersects + ", tzoom = " + tile.getZoomLevel());
+        List<MapTile> toRemove = tilesToRemove;
+        for (Group level : levels) {
+            ObservableList<Node> children = level.getChildren();
+            for (int c = 0; c < children.size(); c++) {
+                MapTile tile = (MapTile) children.get(c);
+                boolean intersects = isInLoadedRange(tile, zp);
+                if (fine) {
+                    logger.fine("evaluate tile " + tile + ", is = " + intersects + ", tzoom = " + tile.getZoomLevel());
+                }
                 if (!intersects) {
                     logger.fine("not shown");
                     boolean loading = tile.loading();
-                    logger.fine("Reap " + tile + " loading? " + loading);
-                    if (!loading) {
-                        toRemove.add(tile);
+                    if (fine) {
+                        logger.fine("Reap " + tile + " loading? " + loading);
+                    }
+                    if (loading) {
+                        // nobody will see this tile, stop loading it
+                        tile.cancel();
                     }
+                    toRemove.add(tile);
                 } else if (tile.getZoomLevel() > ceil(zp)) {
                     logger.fine("too detailed");
+                    tile.cancel();
                     toRemove.add(tile);
-                } else if ((tile.getZoomLevel() < floor(zp + TIPPING)) && (!tile.isCovering()) && (!(ceil(zp) >= MAX_ZOOM))) {
+                } else if ((tile.getZoomLevel() < Math.min(floor(zp + TIPPING), maxTileZoom)) && (!tile.isCovering())) {
                     logger.fine("not enough detailed");
+                    tile.cancel();
                     toRemove.add(tile);
                 }
             }
+            if (!toRemove.isEmpty()) {
+                removed += toRemove.size();
+                children.removeAll(toRemove);
+                toRemove.clear();
+            }
+        }
+        if (span != null) {
+            span.zoom(getVisibleZoom()).count(removed).commit();
         }
 
-        getChildren().removeAll(toRemove);
-
-        logger.fine("DONE CLEANUP, #children = " + getChildren().size());
-    }
-
-    private void clearTiles() {
-
-        List<Node> toRemove = new ArrayList<>();
-        ObservableList<Node> children = this.getChildren();
-        for (Node child : children) {
-            if (child instanceof MapTile) {
-                toRemove.add(child);
+        if (fine) {
+            int count = 0;
+            for (Group level : levels) {
+                count += level.getChildren().size();
             }
+            logger.fine("DONE CLEANUP, #children = " + count);
         }
-        getChildren().removeAll(children);
+    }
 
-        for (int i = 0; i < tiles.length; i++) {
-            tiles[i].clear();
+    /**
+     * Checks if a tile intersects the visible area. This is the same as
+     * intersecting their bounds in parent, but it doesn't create any Bounds
+     * while the map is being dragged.
+     */
+    // true if the tile is within the margin around the tiles that the last layout added
+    // at its level, or for a level above the nearest zoom, if it intersects the view
+    private boolean isInLoadedRange(MapTile tile, double zp) {
+        int shift = loadedZoom - tile.myZoom;
+        if (loadedZoom < 0 || shift < 0) {
+            return intersectsArea(tile, zp);
         }
+        return tile.i >= (loadedIMin >> shift) - KEEP_MARGIN && tile.i <= ((loadedIMax - 1) >> shift) + KEEP_MARGIN &&
+                tile.j >= (loadedJMin >> shift) - KEEP_MARGIN && tile.j <= ((loadedJMax - 1) >> shift) + KEEP_MARGIN;
+    }
 
+    private boolean intersectsArea(MapTile tile, double zp) {
+        double size = 256 * Math.pow(2, zp - tile.getZoomLevel());
+        double minX = tile.i * size;
+        double minY = tile.j * size;
+        double areaX = area.getX() + area.getTranslateX();
+        double areaY = area.getY() + area.getTranslateY();
+        return minX <= areaX + area.getWidth() && minX + size >= areaX &&
+                minY <= areaY + area.getHeight() && minY + size >= areaY;
+    }
+
+    private void clearTiles() {
+        for (Group level : levels) {
+            level.getChildren().clear();
+        }
+        tiles.clear();
     }
 
 
@@ -465,15 +848,14 @@ public class BaseMap extends Group {
         if (z > 0) {
             long pi = tile.i / 2;
             long pj = tile.j / 2;
-            long i_max = 1 << (z - 1);
-            Long key = pi * i_max + pj;
-            // LongTuple it = new LongTuple(i,j);
-            SoftReference<MapTile> ref = tiles[z - 1].get(key);
-            if (ref != null) {
+            MapTile covering = tiles.peek(z - 1, pi, pj);
+            if (covering != null) {
                 logger.fine("[JVDBG] COVERING TILE FOUND!");
-                return ref.get();
+                return covering;
             } else {
-                logger.fine("not tile found for " + z + ", " + pi + ", " + pj);
+                if (logger.isLoggable(Level.FINE)) {
+                    logger.fine("not tile found for " + z + ", " + pi + ", " + pj);
+                }
             }
         }
         return null;
@@ -487,8 +869,14 @@ public class BaseMap extends Group {
     @Override
     protected void layoutChildren() {
         if (dirty) {
-            loadTiles();
+            TileMetricsRecorder metrics = Metrics.recorder();
+            long start = metrics != null ? System.nanoTime() : 0;
+            updateLevels();
+            int tileCount = loadTiles();
             dirty = false;
+            if (metrics != null) {
+                metrics.recordLayoutPass(System.nanoTime() - start, tileCount);
+            }
         }
         super.layoutChildren();
     }
@@ -499,13 +887,18 @@ public class BaseMap extends Group {
         calculateCoords(x, y, centerLat, centerLon);
     }
     
-    private void calculateCoords(double x, double y, SimpleDoubleProperty lat, SimpleDoubleProperty lon) {        
-        double z = zoom.get();
-        double latrad = Math.PI - (2.0 * Math.PI * y) / (Math.pow(2, z)*256.);
-        double mlat = Math.toDegrees(Math.atan(Math.sinh(latrad)));
-        double mlon = x / (256*Math.pow(2, z)) * 360 - 180;
-        lon.set(mlon);
-        lat.set(mlat);
+    private void calculateCoords(double x, double y, ReadOnlyDoubleWrapper lat, ReadOnlyDoubleWrapper lon) {
+        lon.set(calculateLon(x));
+        lat.set(calculateLat(y));
+    }
+
+    private double calculateLat(double y) {
+        double latrad = Math.PI - (2.0 * Math.PI * y) / (Math.pow(2, zoom.get())*256.);
+        return Math.toDegrees(Math.atan(Math.sinh(latrad)));
+    }
+
+    private double calculateLon(double x) {
+        return x / (256*Math.pow(2, zoom.get())) * 360 - 180;
     }
     
     /**
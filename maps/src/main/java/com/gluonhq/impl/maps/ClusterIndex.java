@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gluonhq.impl.maps;
+
+/**
+ * Precomputed clusters of points for every integer zoom level, stored in
+ * primitive arrays.
+ * At zoom level z, the map is divided into a grid of cells of
+ * <code>256 / 2^cellShift</code> pixels, and all points inside a cell form a
+ * cluster. Since the cells at zoom level z + 1 subdivide the cells at level z,
+ * the clusters form a hierarchy. A cluster only keeps the number of points
+ * and the sum of their coordinates, so adding or removing a point updates
+ * one cell per zoom level, without rebuilding any other cluster.
+ * This class is not thread-safe.
+ */
+public final class ClusterIndex {
+
+    /**
+     * Receives the clusters found by a query.
+     */
+    @FunctionalInterface
+    public interface Visitor {
+
+        /**
+         * Visits a non-empty cluster.
+         *
+         * @param cell the cell key of the cluster, unique within a zoom level
+         * @param count the number of points in the cluster
+         * @param x the normalized Mercator x coordinate of the centroid
+         * @param y the normalized Mercator y coordinate of the centroid
+         */
+        void visit(long cell, int count, double x, double y);
+    }
+
+    private final int cellShift;
+    private final Level[] levels;
+
+    /**
+     * Creates a cluster index.
+     *
+     * @param maxZoom the highest zoom level for which clusters are computed
+     * @param cellShift the cells at a zoom level are the tiles at zoom level
+     *                  + cellShift, e.g. a shift of 2 gives cells of 64 pixels
+     */
+    public ClusterIndex(int maxZoom, int cellShift) {
+        this.cellShift = cellShift;
+        this.levels = new Level[maxZoom + 1];
+        for (int z = 0; z <= maxZoom; z++) {
+            levels[z] = new Level();
+        }
+    }
+
+    public int getMaxZoom() {
+        return levels.length - 1;
+    }
+
+    /**
+     * Adds a point to the cluster that contains it, at every zoom level.
+     *
+     * @param x the normalized Mercator x coordinate
+     * @param y the normalized Mercator y coordinate
+     */
+    public void add(double x, double y) {
+        for (int z = 0; z < levels.length; z++) {
+            levels[z].update(cell(z, x, y), 1, x, y);
+        }
+    }
+
+    /**
+     * Removes a point that was added with the same coordinates.
+     *
+     * @param x the normalized Mercator x coordinate
+     * @param y the normalized Mercator y coordinate
+     */
+    public void remove(double x, double y) {
+        for (int z = 0; z < levels.length; z++) {
+            levels[z].update(cell(z, x, y), -1, -x, -y);
+        }
+    }
+
+    public void clear() {
+        for (int z = 0; z < levels.length; z++) {
+            levels[z] = new Level();
+        }
+    }
+
+    /**
+     * Visits the clusters at a zoom level whose cell intersects the given
+     * rectangle. This takes one lookup per cell in the rectangle.
+     *
+     * @param zoom the zoom level, at most {@link #getMaxZoom()}
+     * @param minX the minimum normalized Mercator x coordinate
+     * @param minY the minimum normalized Mercator y coordinate
+     * @param maxX the maximum normalized Mercator x coordinate
+     * @param maxY the maximum normalized Mercator y coordinate
+     * @param visitor receives every non-empty cluster
+     */
+    public void query(int zoom, double minX, double minY, double maxX, double maxY, Visitor visitor) {
+        Level level = levels[zoom];
+        if (level.size == 0) {
+            return;
+        }
+        int shift = zoom + cellShift;
+        long n = 1L << shift;
+        long imin = Math.max(0, (long) Math.floor(minX * n));
+        long jmin = Math.max(0, (long) Math.floor(minY * n));
+        long imax = Math.min(n - 1, (long) Math.floor(maxX * n));
+        long jmax = Math.min(n - 1, (long) Math.floor(maxY * n));
+        for (long i = imin; i <= imax; i++) {
+            for (long j = jmin; j <= jmax; j++) {
+                long cell = i * n + j;
+                int slot = level.find(cell);
+                if (slot >= 0) {
+                    int count = level.counts[slot];
+                    visitor.visit(cell, count, level.sumX[slot] / count, level.sumY[slot] / count);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the bounds of a cell, as {minX, minY, maxX, maxY} in normalized
+     * Mercator coordinates.
+     *
+     * @param zoom the zoom level of the cell
+     * @param cell the cell key
+     * @param bounds an array of at least 4 elements that receives the bounds
+     */
+    public void getCellBounds(int zoom, long cell, double[] bounds) {
+        long n = 1L << (zoom + cellShift);
+        double size = 1. / n;
+        bounds[0] = (cell / n) * size;
+        bounds[1] = (cell % n) * size;
+        bounds[2] = bounds[0] + size;
+        bounds[3] = bounds[1] + size;
+    }
+
+    /**
+     * Returns the key of the cell that contains a point. A point on the edge
+     * of the world is in the last cell.
+     *
+     * @param zoom the zoom level of the cell
+     * @param x the normalized Mercator x coordinate
+     * @param y the normalized Mercator y coordinate
+     * @return the cell key
+     */
+    public long cell(int zoom, double x, double y) {
+        long n = 1L << (zoom + cellShift);
+        long i = Math.min(n - 1, Math.max(0, (long) (x * n)));
+        long j = Math.min(n - 1, Math.max(0, (long) (y * n)));
+        return i * n + j;
+    }
+
+    /**
+     * The clusters of one zoom level, in an open-addressing table with
+     * parallel arrays. A slot is empty when its count is 0.
+     */
+    private static final class Level {
+
+        long[] keys = new long[16];
+        int[] counts = new int[16];
+        double[] sumX = new double[16];
+        double[] sumY = new double[16];
+        int mask = 15;
+        int size;
+
+        int find(long key) {
+            int slot = slot(key);
+            while (counts[slot] != 0) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        void update(long key, int delta, double dx, double dy) {
+            int slot = slot(key);
+            while (counts[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (counts[slot] == 0) {
+                if (delta < 0) {
+                    return;
+                }
+                keys[slot] = key;
+                sumX[slot] = 0;
+                sumY[slot] = 0;
+                size++;
+            }
+            counts[slot] += delta;
+            sumX[slot] += dx;
+            sumY[slot] += dy;
+            if (counts[slot] == 0) {
+                size--;
+                shiftBack(slot);
+            } else if (size > (mask + 1) >> 1) {
+                rehash((mask + 1) << 1);
+            }
+        }
+
+        private void shiftBack(int slot) {
+            int gap = slot;
+            int next = (gap + 1) & mask;
+            while (counts[next] != 0) {
+                int home = slot(keys[next]);
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    keys[gap] = keys[next];
+                    counts[gap] = counts[next];
+                    sumX[gap] = sumX[next];
+                    sumY[gap] = sumY[next];
+                    gap = next;
+                }
+                next = (next + 1) & mask;
+            }
+            counts[gap] = 0;
+        }
+
+        private void rehash(int capacity) {
+            long[] oldKeys = keys;
+            int[] oldCounts = counts;
+            double[] oldX = sumX;
+            double[] oldY = sumY;
+            keys = new long[capacity];
+            counts = new int[capacity];
+            sumX = new double[capacity];
+            sumY = new double[capacity];
+            mask = capacity - 1;
+            for (int k = 0; k < oldCounts.length; k++) {
+                if (oldCounts[k] != 0) {
+                    int slot = slot(oldKeys[k]);
+                    while (counts[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[k];
+                    counts[slot] = oldCounts[k];
+                    sumX[slot] = oldX[k];
+                    sumY[slot] = oldY[k];
+                }
+            }
+        }
+
+        private int slot(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gluonhq.impl.maps;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hands the completion of tiles from background threads to the FX thread,
+ * once per pulse. Completions are queued, and an {@link AnimationTimer},
+ * which only runs while there is something in the queue, applies all of
+ * them at the start of the next pulse, before the layout pass. When many
+ * tiles complete at once, they cause a single layout of the map.
+ */
+final class FxHandoff {
+
+    private static final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private static final AtomicBoolean scheduled = new AtomicBoolean();
+
+    // only written on the FX thread
+    private static volatile long frameCount;
+    private static volatile long appliedCount;
+    private static volatile int maxPerFrame;
+
+    private static final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            int applied = 0;
+            Runnable task;
+            while ((task = queue.poll()) != null) {
+                task.run();
+                applied++;
+            }
+            if (applied > 0) {
+                frameCount++;
+                appliedCount += applied;
+                if (applied > maxPerFrame) {
+                    maxPerFrame = applied;
+                }
+            }
+            stop();
+            scheduled.set(false);
+            // a task may have been posted after the queue was drained
+            if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+                start();
+            }
+        }
+    };
+
+    private FxHandoff() {
+    }
+
+    /**
+     * Runs a task on the FX thread, in the next pulse, together with the
+     * other tasks posted until then.
+     *
+     * @param task the task
+     */
+    static void post(Runnable task) {
+        queue.add(task);
+        if (scheduled.compareAndSet(false, true)) {
+            Platform.runLater(timer::start);
+        }
+    }
+
+    /**
+     * Returns the number of pulses in which tasks were applied
+     * @return the number of pulses
+     */
+    static long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Returns the number of tasks applied
+     * @return the number of tasks
+     */
+    static long getAppliedCount() {
+        return appliedCount;
+    }
+
+    /**
+     * Returns the largest number of tasks applied in a single pulse
+     * @return the number of tasks
+     */
+    static int getMaxPerFrame() {
+        return maxPerFrame;
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016, 2020, Gluon
+ * Copyright (c) 2016, 2026, Gluon
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -29,19 +29,21 @@ package com.gluonhq.impl.maps;
 
 import javafx.beans.InvalidationListener;
 import javafx.beans.Observable;
-import javafx.beans.WeakInvalidationListener;
 import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
 import javafx.scene.layout.Region;
-import javafx.scene.transform.Scale;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import static java.lang.Math.floor;
-
 /**
- *
+ * A tile is placed at its fixed position (256 * i, 256 * j) inside the
+ * container of its zoom level. Only that container is scaled when the zoom
+ * changes, so tiles never need to be repositioned.
  */
 class MapTile extends Region {
 
@@ -53,17 +55,20 @@ class MapTile extends Region {
     // a list of tiles that this tile is covering. In case the covered tiles are 
     // not yet loaded, this tile will be rendered.
     private final List<MapTile> coveredTiles = new LinkedList<>();
-    /**
-     * In most cases, a tile will be shown scaled. The value for the scale
-     * factor depends on the active zoom and the tile-specific myZoom
-     */
-    private final Scale scale = new Scale();
+    // the tile that is covering for this tile while it loads, if any
+    private MapTile coveringTile;
+    // the ancestor whose image this tile shows because its own image couldn't be loaded, if any
+    private MapTile fallbackTile;
+    // the ancestor this tile waits for to get an image to fall back to, if any
+    private MapTile waitingOn;
+    // the descendants that wait for this tile to get an image, own or of an ancestor
+    private List<MapTile> waitingTiles;
 
     public boolean isCovering() {
         return coveredTiles.size() > 0;
     }
 
-    private final InvalidationListener zl = o -> calculatePosition();
+    private final TileImageView imageView;
     private ReadOnlyDoubleProperty progress;
 
     MapTile(BaseMap baseMap, int nearestZoom, long i, long j) {
@@ -71,41 +76,233 @@ class MapTile extends Region {
         this.myZoom = nearestZoom;
         this.i = i;
         this.j = j;
-        scale.setPivotX(0);
-        scale.setPivotY(0);
-        getTransforms().add(scale);
-        debug("[JVDBG] load image [" + myZoom + "], i = " + i + ", j = " + j);
+        setTranslateX(256 * i);
+        setTranslateY(256 * j);
+        if (logger.isLoggable(Level.FINE)) {
+            debug("[JVDBG] load image [" + myZoom + "], i = " + i + ", j = " + j);
+        }
 
-        final TileImageView imageView = new TileImageView(myZoom, i, j);
-        imageView.exceptionProperty().addListener((obs, ov, nv) -> logger.info("Error: " + nv.getMessage()));
+        imageView = new TileImageView(myZoom, i, j);
+        imageView.exceptionProperty().addListener((obs, ov, nv) -> {
+            logger.info("Error: " + nv.getMessage());
+            baseMap.showFallback(this);
+        });
+        imageView.downloadingProperty().addListener((obs, ov, nv) -> {
+            if (!nv && imageView.isFailed()) {
+                baseMap.resizeTile(this);
+                if (imageView.isDropped()) {
+                    baseMap.retryDropped(this);
+                }
+            }
+        });
         imageView.setMouseTransparent(true);
         progress = imageView.progressProperty();
 
         getChildren().addAll(imageView);
         if (progress.get() == 1.0) {
-            debug("Already got image [" + myZoom + "], i = " + i + ", j = " + j);
+            if (logger.isLoggable(Level.FINE)) {
+                debug("Already got image [" + myZoom + "], i = " + i + ", j = " + j);
+            }
             setNeedsLayout(true);
         } else {
             progress.addListener(new InvalidationListener() {
                 @Override
                 public void invalidated(Observable observable) {
                     if (progress.get() >= 1.0d) {
-                        debug("Got image [" + myZoom + "], i = " + i + ", j = " + j);
+                        if (logger.isLoggable(Level.FINE)) {
+                            debug("Got image [" + myZoom + "], i = " + i + ", j = " + j);
+                        }
                         setNeedsLayout(true);
                         progress.removeListener(this);
+                        baseMap.resizeTile(MapTile.this);
+                        notifyWaiting(MapTile.this);
                     }
                 }
             });
         }
-        baseMap.zoom().addListener(new WeakInvalidationListener(zl));
-        baseMap.translateXProperty().addListener(new WeakInvalidationListener(zl));
-        baseMap.translateYProperty().addListener(new WeakInvalidationListener(zl));
-        calculatePosition();
+        updateVisibility(baseMap.getVisibleZoom());
         this.setMouseTransparent(true);
     }
 
     boolean loading() {
-        return progress.get() < 1.0;
+        return progress.get() < 1.0 && !imageView.isFailed();
+    }
+
+    /**
+     * Returns true if the image of this tile couldn't be loaded. A failed
+     * tile that is removed from the scene will be created again the next
+     * time it comes into view.
+     *
+     * @return true if the tile failed to load
+     */
+    boolean isFailed() {
+        return imageView.isFailed();
+    }
+
+    /**
+     * Returns true if the retriever dropped the load of the image of this
+     * tile on its own, without the tile being cancelled.
+     *
+     * @return true if the load of the tile was dropped
+     */
+    boolean isDropped() {
+        return imageView.isDropped();
+    }
+
+    /**
+     * Returns true if the load of the image of this tile was cancelled or
+     * dropped, rather than failed, so loading it again may succeed.
+     *
+     * @return true if the load of the tile was cancelled
+     */
+    boolean isCancelled() {
+        return imageView.isFailed() && imageView.getException() == null;
+    }
+
+    /**
+     * Cancels the pending load of the image of this tile, when the tile is
+     * removed from the scene or evicted before it finished loading. A tile
+     * that is covering for this tile stops doing so. If descendants wait
+     * for this tile to fall back to, this tile falls back to its own
+     * ancestors for them.
+     */
+    void cancel() {
+        if (loading()) {
+            imageView.cancel();
+        }
+        if (coveringTile != null) {
+            coveringTile.removeCovered(this);
+        }
+        if (hasWaiting()) {
+            if (waitingOn == null) {
+                baseMap.showFallback(this);
+            }
+        } else if (waitingOn != null) {
+            waitingOn.waitingTiles.remove(this);
+            waitingOn = null;
+        }
+    }
+
+    /**
+     * Returns the tile whose image this tile shows: this tile once its image
+     * is loaded, or the ancestor it falls back to if its image couldn't be
+     * loaded.
+     *
+     * @return the tile with the image, or null if there's none yet
+     */
+    MapTile getImageSource() {
+        return progress.get() >= 1.0 ? this : fallbackTile;
+    }
+
+    /**
+     * Returns true if this tile failed to load, and waits for an ancestor to
+     * get an image to fall back to.
+     *
+     * @return true if this tile is waiting for an ancestor
+     */
+    boolean isResolving() {
+        return waitingOn != null;
+    }
+
+    /**
+     * Shows the part of the image of an ancestor that covers this tile, scaled
+     * up, because the image of this tile couldn't be loaded. The image is
+     * shared with the ancestor, it is only cropped by the viewport of the
+     * image view, so this doesn't decode anything nor use more memory.
+     *
+     * @param ancestor a lower-zoom tile covering this tile, that has an image
+     */
+    void showAncestor(MapTile ancestor) {
+        waitingOn = null;
+        Image image = ancestor.imageView.getImage();
+        int levels = myZoom - ancestor.myZoom;
+        double width = image.getWidth() / (1L << levels);
+        double height = image.getHeight() / (1L << levels);
+        imageView.setViewport(new Rectangle2D((i - (ancestor.i << levels)) * width,
+                (j - (ancestor.j << levels)) * height, width, height));
+        imageView.setImage(image);
+        fallbackTile = ancestor;
+        if (logger.isLoggable(Level.FINE)) {
+            debug("Fall back from [" + myZoom + "], i = " + i + ", j = " + j + " to " + ancestor);
+        }
+        notifyWaiting(ancestor);
+    }
+
+    /**
+     * Returns true if descendants wait for this tile to get an image to fall
+     * back to. The tile cache doesn't evict such a tile.
+     *
+     * @return true if tiles wait for this tile
+     */
+    boolean hasWaiting() {
+        return waitingTiles != null && !waitingTiles.isEmpty();
+    }
+
+    /**
+     * Makes a descendant that failed to load wait for this tile to get an
+     * image, or shows the image of this tile on the descendant right away.
+     *
+     * @param tile the descendant
+     */
+    void addWaiting(MapTile tile) {
+        MapTile source = getImageSource();
+        if (source != null) {
+            tile.showAncestor(source);
+            return;
+        }
+        if (waitingTiles == null) {
+            waitingTiles = new ArrayList<>(4);
+        }
+        waitingTiles.add(tile);
+        tile.waitingOn = this;
+    }
+
+    /**
+     * Makes the descendants that wait for this tile wait for another tile
+     * instead, for instance the tile that replaces this one.
+     *
+     * @param tile the tile to wait for
+     */
+    void handOverWaiting(MapTile tile) {
+        if (waitingTiles == null) {
+            return;
+        }
+        List<MapTile> waiting = waitingTiles;
+        waitingTiles = null;
+        for (MapTile descendant : waiting) {
+            descendant.waitingOn = null;
+            tile.addWaiting(descendant);
+        }
+    }
+
+    private void notifyWaiting(MapTile source) {
+        if (waitingTiles == null) {
+            return;
+        }
+        List<MapTile> waiting = waitingTiles;
+        waitingTiles = null;
+        for (MapTile tile : waiting) {
+            tile.showAncestor(source);
+        }
+    }
+
+    /**
+     * Returns the number of bytes used by the decoded image of this tile. While
+     * the image is still loading, the size of a 256x256 tile is assumed. A
+     * tile that failed to load has no image of its own: the placeholder or
+     * the image of an ancestor it shows is shared, so its size is 0.
+     *
+     * @return the size in bytes
+     */
+    long getByteSize() {
+        if (loading()) {
+            return 256L * 256 * 4;
+        }
+        Image image = imageView.getImage();
+        if (progress.get() < 1.0 || image == null) {
+            return 0;
+        }
+        return (long) image.getWidth() * (long) image.getHeight() * 4;
     }
 
     /**
@@ -117,19 +314,21 @@ class MapTile extends Region {
         return myZoom;
     }
 
-    private void calculatePosition() {
-        double currentZoom = baseMap.zoom().get();
-        int visibleWindow = (int) floor(currentZoom + BaseMap.TIPPING);
+    /**
+     * A tile is visible when its zoom level is the one currently rendered,
+     * or when it is covering for a tile that is still loading. Beyond the
+     * highest zoom level with tiles, the tiles of that level are visible.
+     *
+     * @param visibleWindow the zoom level currently rendered
+     */
+    void updateVisibility(int visibleWindow) {
         boolean visible =  visibleWindow == myZoom ||
                            isCovering() ||
-                           ((visibleWindow >= BaseMap.MAX_ZOOM) && (myZoom == BaseMap.MAX_ZOOM - 1));
+                           ((visibleWindow > baseMap.getMaxTileZoom()) && (myZoom == baseMap.getMaxTileZoom()));
         this.setVisible(visible);
-        logger.fine("visible tile " + this + "? " + this.isVisible() + (this.isVisible() ? " covering? " + isCovering() : ""));
-        double sf = Math.pow(2, currentZoom - myZoom);
-        scale.setX(sf);
-        scale.setY(sf);
-        setTranslateX(256 * i * sf);
-        setTranslateY(256 * j * sf);
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("visible tile " + this + "? " + this.isVisible() + (this.isVisible() ? " covering? " + isCovering() : ""));
+        }
     }
 
     @Override
@@ -144,20 +343,27 @@ class MapTile extends Region {
      */
     void addCovering(MapTile child) {
         coveredTiles.add(child);
-        InvalidationListener il = createProgressListener(child);
+        child.coveringTile = this;
+        child.coveringListener = createProgressListener(child);
 //        System.out.println("We have to cover, add "+il);
-        child.progress.addListener(il);
-        calculatePosition();
+        child.progress.addListener(child.coveringListener);
+        updateVisibility(baseMap.getVisibleZoom());
+    }
+
+    private void removeCovered(MapTile child) {
+        coveredTiles.remove(child);
+        child.progress.removeListener(child.coveringListener);
+        child.coveringTile = null;
+        child.coveringListener = null;
+        updateVisibility(baseMap.getVisibleZoom());
     }
 
+    private InvalidationListener coveringListener;
+
     private InvalidationListener createProgressListener(MapTile child) {
-        return new InvalidationListener() {
-            @Override
-            public void invalidated(Observable o) {
-                if (child.progress.get() >= 1.0d) {
-                    MapTile.this.coveredTiles.remove(child);
-                    child.progress.removeListener(this);
-                }
+        return o -> {
+            if (child.progress.get() >= 1.0d) {
+                removeCovered(child);
             }
         };
     }
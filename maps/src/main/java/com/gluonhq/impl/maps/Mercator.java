@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gluonhq.impl.maps;
+
+/**
+ * Conversions between geographic coordinates and zoom-independent Web
+ * Mercator coordinates. Both Mercator coordinates are normalized to [0, 1],
+ * so the pixel position at a given zoom level is the Mercator coordinate
+ * times <code>256 * 2^zoom</code>.
+ */
+public final class Mercator {
+
+    private Mercator() {
+    }
+
+    /**
+     * Returns the normalized horizontal Mercator coordinate of a longitude
+     *
+     * @param lon the longitude
+     * @return the x coordinate, between 0 and 1
+     */
+    public static double x(double lon) {
+        return (180 + lon) / 360.;
+    }
+
+    /**
+     * Returns the normalized vertical Mercator coordinate of a latitude
+     *
+     * @param lat the latitude
+     * @return the y coordinate, between 0 and 1 for latitudes within the
+     * range covered by the map tiles
+     */
+    public static double y(double lat) {
+        double lat_rad = Math.PI * lat / 180;
+        return (1 - (Math.log(Math.tan(lat_rad) + 1 / Math.cos(lat_rad)) / Math.PI)) / 2;
+    }
+
+    /**
+     * Converts geographic coordinates to normalized Mercator coordinates.
+     * Since these don't depend on the zoom level, they can be cached and
+     * projected with {@link #project(double[], double[], double[], double[], int, double, double, double)}.
+     * The output arrays can be the same as the input arrays, in any order.
+     *
+     * @param lats the latitudes
+     * @param lons the longitudes
+     * @param outX receives the x coordinates
+     * @param outY receives the y coordinates
+     * @param count the number of coordinates to convert
+     */
+    public static void toMercator(double[] lats, double[] lons, double[] outX, double[] outY, int count) {
+        checkLength(count, lats, lons, outX, outY);
+        for (int k = 0; k < count; k++) {
+            // same as y(lat), since tan(lat) + sec(lat) = tan(pi/4 + lat/2), but with one call less
+            // both are read before writing, since the output arrays can be the input arrays
+            double lat = lats[k];
+            double lon = lons[k];
+            outY[k] = 0.5 - Math.log(Math.tan(QUARTER_PI + HALF_RAD * lat)) * INV_TWO_PI;
+            outX[k] = (180 + lon) * INV_360;
+        }
+    }
+
+    /**
+     * Projects normalized Mercator coordinates to pixel coordinates, with a
+     * single multiply-add per coordinate.
+     * The output arrays can be the same as the input arrays, in any order.
+     *
+     * @param xs the normalized x coordinates
+     * @param ys the normalized y coordinates
+     * @param outX receives the x coordinates in pixels
+     * @param outY receives the y coordinates in pixels
+     * @param count the number of coordinates to project
+     * @param scale the size of the map in pixels, <code>256 * 2^zoom</code>
+     * @param tx the horizontal translation of the map
+     * @param ty the vertical translation of the map
+     */
+    public static void project(double[] xs, double[] ys, double[] outX, double[] outY, int count,
+                               double scale, double tx, double ty) {
+        checkLength(count, xs, ys, outX, outY);
+        for (int k = 0; k < count; k++) {
+            double x = xs[k];
+            double y = ys[k];
+            outX[k] = x * scale + tx;
+            outY[k] = y * scale + ty;
+        }
+    }
+
+    private static void checkLength(int count, double[]... arrays) {
+        for (double[] array : arrays) {
+            if (array.length < count) {
+                throw new IllegalArgumentException("Array of length " + array.length + " can't hold " + count + " coordinates");
+            }
+        }
+    }
+
+    private static final double QUARTER_PI = Math.PI / 4;
+    private static final double HALF_RAD = Math.PI / 360;
+    private static final double INV_TWO_PI = 1 / (2 * Math.PI);
+    private static final double INV_360 = 1 / 360.;
+}
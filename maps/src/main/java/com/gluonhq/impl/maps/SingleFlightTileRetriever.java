@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gluonhq.impl.maps;
+
+import com.gluonhq.maps.tile.TileCacheStatistics;
+import com.gluonhq.maps.tile.TileRetriever;
+import com.gluonhq.maps.tile.TileSeeder;
+import javafx.scene.image.Image;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A tile retriever that shares the pending load of a tile among all the
+ * tiles that request it, for instance when several maps show the same area,
+ * or when a tile is evicted and requested again while it was still loading.
+ * <p>
+ * Every caller gets its own future, so it can cancel it without affecting
+ * the others. The shared load is only cancelled when all its callers
+ * cancelled their futures.
+ */
+final class SingleFlightTileRetriever implements TileRetriever {
+
+    private final TileRetriever retriever;
+    // the pending loads, keyed by zoom, i and j
+    private final TileIndex<Flight> flights = new TileIndex<>();
+
+    private static final class Flight {
+        final long key;
+        final CompletableFuture<Image> future;
+        int waiters;
+
+        Flight(long key, CompletableFuture<Image> future) {
+            this.key = key;
+            this.future = future;
+        }
+    }
+
+    SingleFlightTileRetriever(TileRetriever retriever) {
+        this.retriever = retriever;
+    }
+
+    @Override
+    public CompletableFuture<Image> loadTile(int zoom, long i, long j) {
+        long key = TileIndex.key(zoom, i, j);
+        Flight flight;
+        synchronized (this) {
+            flight = flights.get(key);
+            if (flight == null) {
+                CompletableFuture<Image> future = retriever.loadTile(zoom, i, j);
+                if (future.isDone()) {
+                    return future;
+                }
+                flight = new Flight(key, future);
+                flights.put(key, flight);
+                Flight started = flight;
+                future.whenComplete((image, t) -> completed(started));
+            }
+            flight.waiters++;
+        }
+        CompletableFuture<Image> waiter = new CompletableFuture<>();
+        Flight joined = flight;
+        waiter.whenComplete((image, t) -> {
+            if (waiter.isCancelled()) {
+                leave(joined);
+            }
+        });
+        flight.future.whenComplete((image, t) -> {
+            if (t != null) {
+                waiter.completeExceptionally(t);
+            } else {
+                waiter.complete(image);
+            }
+        });
+        return waiter;
+    }
+
+    private synchronized void completed(Flight flight) {
+        if (flights.get(flight.key) == flight) {
+            flights.remove(flight.key);
+        }
+    }
+
+    private void leave(Flight flight) {
+        synchronized (this) {
+            if (--flight.waiters > 0 || flight.future.isDone()) {
+                return;
+            }
+            // nobody waits for this load anymore
+            if (flights.get(flight.key) == flight) {
+                flights.remove(flight.key);
+            }
+        }
+        flight.future.cancel(false);
+    }
+
+    @Override
+    public void setViewport(int zoom, double centerI, double centerJ) {
+        retriever.setViewport(zoom, centerI, centerJ);
+    }
+
+    @Override
+    public void prefetch(int zoom, long i, long j) {
+        synchronized (this) {
+            if (flights.get(TileIndex.key(zoom, i, j)) != null) {
+                // already loading
+                return;
+            }
+        }
+        retriever.prefetch(zoom, i, j);
+    }
+
+    @Override
+    public int getMaxZoom() {
+        return retriever.getMaxZoom();
+    }
+
+    @Override
+    public Optional<TileCacheStatistics> getCacheStatistics() {
+        return retriever.getCacheStatistics();
+    }
+
+    @Override
+    public Optional<TileSeeder> getSeeder() {
+        return retriever.getSeeder();
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gluonhq.impl.maps;
+
+import com.gluonhq.maps.tile.TileCacheStatistics;
+import com.gluonhq.maps.tile.TileMetricsRecorder;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A bounded cache of the tiles created by a {@link BaseMap}.
+ * The size of a tile is the number of bytes of its decoded image
+ * (width * height * 4). A tile is charged for a 256x256 image while it
+ * loads, and charged again for its actual image once it is loaded, or for
+ * nothing if it failed. When the total size exceeds the capacity, tiles are
+ * evicted using the CLOCK algorithm: every lookup sets a reference bit, and
+ * the clock hand evicts the first tile it finds with a cleared bit.
+ * Tiles that are currently part of the scene graph are never evicted, nor
+ * are the tiles that other tiles wait for to fall back to.
+ */
+final class TileCache {
+
+    private static final Logger logger = Logger.getLogger(TileCache.class.getName());
+
+    /**
+     * The default capacity, in bytes. This is enough for 256 tiles of 256x256 pixels.
+     */
+    static final long DEFAULT_CAPACITY = 256L * 256 * 256 * 4;
+
+    // the cached tiles of each zoom level
+    private final ZoomLevel[] index;
+
+    // the clock hand, pointing into a circular list of all entries
+    private Entry hand;
+    private long capacity;
+    private long size;
+    private long entryCount;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    TileCache(int levels, long capacity) {
+        index = new ZoomLevel[levels];
+        for (int i = 0; i < levels; i++) {
+            index[i] = new ZoomLevel();
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the cached tile and marks it as recently used. Lookups for tiles
+     * that are part of the scene graph are not counted as hits.
+     *
+     * @param zoom the zoomlevel
+     * @param i the x-index
+     * @param j the y-index
+     * @return the tile, or null if it isn't cached
+     */
+    MapTile get(int zoom, long i, long j) {
+        Entry entry = index[zoom].entries.get(TileIndex.key(zoom, i, j));
+        if (entry == null) {
+            missCount++;
+            recordLookup(false);
+            return null;
+        }
+        if (entry.tile.getParent() == null) {
+            hitCount++;
+            recordLookup(true);
+        }
+        entry.referenced = true;
+        return entry.tile;
+    }
+
+    private static void recordLookup(boolean hit) {
+        TileMetricsRecorder metrics = Metrics.recorder();
+        if (metrics != null) {
+            metrics.recordMemoryCacheLookup(hit);
+        }
+    }
+
+    /**
+     * Returns the cached tile without affecting its eviction order or the
+     * statistics.
+     *
+     * @param zoom the zoomlevel
+     * @param i the x-index
+     * @param j the y-index
+     * @return the tile, or null if it isn't cached
+     */
+    MapTile peek(int zoom, long i, long j) {
+        Entry entry = index[zoom].entries.get(TileIndex.key(zoom, i, j));
+        return entry == null ? null : entry.tile;
+    }
+
+    /**
+     * Adds a tile to the cache. No tiles are evicted until {@link #trim()} is
+     * called, so the caller can add the tile to the scene graph first.
+     *
+     * @param tile the tile to cache
+     */
+    void put(MapTile tile) {
+        Entry entry = new Entry(tile, tile.getByteSize());
+        Entry old = index[tile.myZoom].entries.put(TileIndex.key(tile.myZoom, tile.i, tile.j), entry);
+        if (old != null) {
+            unlink(old);
+        }
+        link(entry);
+    }
+
+    /**
+     * Charges a cached tile again for the size of its image, after its image
+     * was loaded or failed to load.
+     *
+     * @param tile the tile whose size changed
+     */
+    void resize(MapTile tile) {
+        Entry entry = index[tile.myZoom].entries.get(TileIndex.key(tile.myZoom, tile.i, tile.j));
+        if (entry != null && entry.tile == tile) {
+            long newSize = tile.getByteSize();
+            size += newSize - entry.size;
+            entry.size = newSize;
+        }
+    }
+
+    /**
+     * Removes a tile from the cache, if it is still cached.
+     *
+     * @param tile the tile to remove
+     */
+    void remove(MapTile tile) {
+        TileIndex<Entry> level = index[tile.myZoom].entries;
+        long key = TileIndex.key(tile.myZoom, tile.i, tile.j);
+        Entry entry = level.get(key);
+        if (entry != null && entry.tile == tile) {
+            level.remove(key);
+            unlink(entry);
+        }
+    }
+
+    void clear() {
+        if (hand != null) {
+            Entry entry = hand;
+            do {
+                entry.tile.cancel();
+                entry = entry.next;
+            } while (entry != hand);
+        }
+        for (ZoomLevel level : index) {
+            level.entries.clear();
+        }
+        hand = null;
+        size = 0;
+        entryCount = 0;
+    }
+
+    long getCapacity() {
+        return capacity;
+    }
+
+    void setCapacity(long capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity can't be negative: " + capacity);
+        }
+        this.capacity = capacity;
+        trim();
+    }
+
+    TileCacheStatistics getStatistics() {
+        return new TileCacheStatistics(hitCount, missCount, evictionCount, entryCount, size, capacity);
+    }
+
+    /**
+     * Evicts tiles that are not part of the scene graph until the size of the
+     * cache no longer exceeds its capacity.
+     */
+    void trim() {
+        // every entry is visited at most twice: once to clear its bit, once to evict it
+        long budget = 2 * entryCount;
+        while (size > capacity && hand != null && budget-- > 0) {
+            Entry candidate = hand;
+            if (candidate.referenced || candidate.tile.getParent() != null || candidate.tile.hasWaiting()) {
+                candidate.referenced = false;
+                hand = candidate.next;
+            } else {
+                index[candidate.tile.myZoom].entries.remove(TileIndex.key(candidate.tile.myZoom, candidate.tile.i, candidate.tile.j));
+                unlink(candidate);
+                candidate.tile.cancel();
+                evictionCount++;
+                if (logger.isLoggable(Level.FINE)) {
+                    logger.fine("EVICTED: " + candidate.tile);
+                }
+            }
+        }
+    }
+
+    private void link(Entry entry) {
+        if (hand == null) {
+            entry.prev = entry;
+            entry.next = entry;
+            hand = entry;
+        } else {
+            // insert right behind the hand, so the new entry is considered last
+            entry.next = hand;
+            entry.prev = hand.prev;
+            hand.prev.next = entry;
+            hand.prev = entry;
+        }
+        size += entry.size;
+        entryCount++;
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.next == entry) {
+            hand = null;
+        } else {
+            entry.prev.next = entry.next;
+            entry.next.prev = entry.prev;
+            if (hand == entry) {
+                hand = entry.next;
+            }
+        }
+        entry.prev = null;
+        entry.next = null;
+        size -= entry.size;
+        entryCount--;
+    }
+
+    // a generic array can't be created, but an array of these can
+    private static final class ZoomLevel {
+        final TileIndex<Entry> entries = new TileIndex<>();
+    }
+
+    private static final class Entry {
+        final MapTile tile;
+        long size;
+        boolean referenced = true;
+        Entry prev, next;
+
+        Entry(MapTile tile, long size) {
+            this.tile = tile;
+            this.size = size;
+        }
+    }
+}
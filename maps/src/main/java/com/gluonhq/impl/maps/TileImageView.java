@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2020, 2022, Gluon
+ * Copyright (c) 2020, 2026, Gluon
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -27,9 +27,11 @@
  */
 package com.gluonhq.impl.maps;
 
+import com.gluonhq.maps.tile.TileCacheStatistics;
+import com.gluonhq.maps.tile.TileLoadStatistics;
 import com.gluonhq.maps.tile.TileRetriever;
 import com.gluonhq.maps.tile.TileRetrieverProvider;
-import javafx.application.Platform;
+import com.gluonhq.maps.tile.TileSeeder;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.ReadOnlyBooleanWrapper;
 import javafx.beans.property.ReadOnlyDoubleProperty;
@@ -40,47 +42,150 @@ import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 public class TileImageView extends ImageView {
 
     private static final Logger logger = Logger.getLogger(TileImageView.class.getName());
-    private static final TileRetriever TILE_RETRIEVER = TileRetrieverProvider.getInstance().load();
+    private static final TileRetriever TILE_RETRIEVER =
+            new SingleFlightTileRetriever(TileRetrieverProvider.getInstance().load());
+
+    private static final LongAdder completedCount = new LongAdder();
+    private static final LongAdder failedCount = new LongAdder();
+    private static final LongAdder cancelledCount = new LongAdder();
+
+    private final CompletableFuture<Image> future;
 
     public TileImageView(int zoom, long i, long j) {
         setFitHeight(256);
         setFitWidth(256);
         setPreserveRatio(true);
         setProgress(0);
-        CompletableFuture<Image> future = TILE_RETRIEVER.loadTile(zoom, i, j);
-        if (!future.isDone()) {
+        future = TILE_RETRIEVER.loadTile(zoom, i, j);
+        // a load that failed right away is reported like one that fails later
+        if (!future.isDone() || future.isCompletedExceptionally()) {
             Optional.ofNullable(placeholderImageSupplier).ifPresent(s -> setImage(s.get()));
             logger.fine("start downloading tile " + zoom + "/" + i + "/" + j);
             downloading.setValue(true);
-            future.handle((image, t) -> {
+            future.whenComplete((image, t) -> {
                 if (t != null) {
-                    logger.fine("Tile " + zoom + "/" + i + "/" + j + " failed with exception");
-                    setException(new Exception(t));
-                    return null;
+                    Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+                    boolean cancelled = cause instanceof CancellationException;
+                    logger.fine("Tile " + zoom + "/" + i + "/" + j + (cancelled ? " was cancelled" : " failed with exception"));
+                    (cancelled ? cancelledCount : failedCount).increment();
+                    FxHandoff.post(() -> {
+                        // unless the tile cancelled the load itself
+                        dropped = cancelled && !failed;
+                        failed = true;
+                        downloading.setValue(false);
+                        if (!cancelled) {
+                            setException(new Exception(cause));
+                        }
+                    });
+                    return;
                 }
-                return image;
-            }).thenAccept(file -> {
                 logger.fine("Tile from downloaded file " + zoom + "/" + i + "/" + j);
-                Platform.runLater(() -> {
+                completedCount.increment();
+                FxHandoff.post(() -> {
                     downloading.setValue(false);
-                    setImage(file);
+                    setImage(image);
                     setProgress(1);
                 });
             });
         } else {
             logger.fine("Tile from file cache");
+            completedCount.increment();
             setImage(future.getNow(null));
             setProgress(1);
         }
     }
 
+    /**
+     * Informs the tile retriever about the visible part of a map, so it can
+     * prioritise the tiles that are closest to the center.
+     *
+     * @param zoom the zoom level of the tiles that are shown
+     * @param centerI the horizontal tile coordinate of the center of the view
+     * @param centerJ the vertical tile coordinate of the center of the view
+     */
+    static void setViewport(int zoom, double centerI, double centerJ) {
+        TILE_RETRIEVER.setViewport(zoom, centerI, centerJ);
+    }
+
+    /**
+     * Hints the tile retriever that a tile is likely to be shown soon.
+     *
+     * @param zoom the zoom level of the tile
+     * @param i the horizontal position of the tile
+     * @param j the vertical position of the tile
+     */
+    static void prefetch(int zoom, long i, long j) {
+        TILE_RETRIEVER.prefetch(zoom, i, j);
+    }
+
+    /**
+     * Returns the highest zoom level the tile retriever has tiles for.
+     *
+     * @return the highest zoom level with tiles
+     */
+    static int getMaxZoom() {
+        return TILE_RETRIEVER.getMaxZoom();
+    }
+
+    /**
+     * Cancels the load of this tile, if it is still pending. The tile is
+     * marked as failed right away.
+     */
+    void cancel() {
+        if (!future.isDone()) {
+            failed = true;
+            downloading.setValue(false);
+            future.cancel(false);
+        }
+    }
+
+    public static TileLoadStatistics getLoadStatistics() {
+        return new TileLoadStatistics(completedCount.sum(), failedCount.sum(), cancelledCount.sum(),
+                FxHandoff.getFrameCount(), FxHandoff.getAppliedCount(), FxHandoff.getMaxPerFrame());
+    }
+
+    public static Optional<TileCacheStatistics> getRetrieverCacheStatistics() {
+        return TILE_RETRIEVER.getCacheStatistics();
+    }
+
+    public static Optional<TileSeeder> getRetrieverSeeder() {
+        return TILE_RETRIEVER.getSeeder();
+    }
+
+    private boolean failed;
+    private boolean dropped;
+
+    /**
+     * Returns true if the tile couldn't be loaded, because its retrieval
+     * failed or was cancelled.
+     *
+     * @return true if the tile failed to load
+     */
+    public final boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Returns true if the tile retriever cancelled the load of the tile on
+     * its own, for instance because the tile was far from the viewport it
+     * was told about, rather than because {@link #cancel()} was called.
+     *
+     * @return true if the load was dropped by the retriever
+     */
+    final boolean isDropped() {
+        return dropped;
+    }
+
     private static Supplier<Image> placeholderImageSupplier;
 
     public static void setPlaceholderImageSupplier(Supplier<Image> supplier) {
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gluonhq.impl.maps;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from primitive <code>long</code> keys to
+ * values, used to index tiles by the key returned by {@link #key}.
+ * Unlike a <code>HashMap&lt;Long, V&gt;</code>, lookups don't box the key,
+ * so they don't allocate.
+ * Collisions are resolved with linear probing, and removals shift the
+ * following entries back, so no tombstones are needed.
+ * Null values are not supported. This class is not thread-safe.
+ *
+ * @param <V> the type of the values
+ */
+public final class TileIndex<V> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+
+    public TileIndex() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Creates an index that can hold the given number of entries without
+     * resizing.
+     *
+     * @param expectedSize the expected number of entries
+     */
+    public TileIndex(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < 2 * expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Returns the value for the given key.
+     *
+     * @param key the key
+     * @return the value, or null if there is no entry for this key
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int slot = slot(key);
+        Object value;
+        while ((value = values[slot]) != null) {
+            if (keys[slot] == key) {
+                return (V) value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Associates a value with the given key.
+     *
+     * @param key the key
+     * @param value the value, not null
+     * @return the previous value for this key, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Null values are not supported");
+        }
+        int slot = slot(key);
+        Object old;
+        while ((old = values[slot]) != null) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return (V) old;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > (mask + 1) >> 1) {
+            rehash((mask + 1) << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Removes the entry for the given key.
+     *
+     * @param key the key
+     * @return the removed value, or null if there was no entry for this key
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int slot = slot(key);
+        Object value;
+        while ((value = values[slot]) != null) {
+            if (keys[slot] == key) {
+                shiftBack(slot);
+                size--;
+                return (V) value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Visits all entries, in no particular order. The index must not be
+     * modified while it is visited.
+     *
+     * @param visitor the visitor
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(Visitor<? super V> visitor) {
+        for (int slot = 0; slot < values.length; slot++) {
+            if (values[slot] != null) {
+                visitor.visit(keys[slot], (V) values[slot]);
+            }
+        }
+    }
+
+    public interface Visitor<V> {
+        void visit(long key, V value);
+    }
+
+    // Moves entries that would no longer be reachable after emptying the
+    // given slot, so every probe sequence stays uninterrupted.
+    private void shiftBack(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (values[next] != null) {
+            int home = slot(keys[next]);
+            // the entry can move to the gap if its home slot isn't cyclically in (gap, next]
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[gap] = null;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = slot(oldKeys[i]);
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Returns the key of a tile, that packs its zoom level and position in
+     * a single <code>long</code>. Keys of different zoom levels never
+     * collide, so tiles of all levels can share an index.
+     *
+     * @param zoom the zoom level of the tile
+     * @param i the horizontal position of the tile
+     * @param j the vertical position of the tile
+     * @return the key
+     */
+    public static long key(int zoom, long i, long j) {
+        // i and j are below 2^zoom, and zoom is below 29, so they fit next to each other
+        return ((long) zoom << 58) | (i << 29) | j;
+    }
+
+    public static int zoom(long key) {
+        return (int) (key >>> 58);
+    }
+
+    public static long i(long key) {
+        return (key >>> 29) & ((1L << 29) - 1);
+    }
+
+    public static long j(long key) {
+        return key & ((1L << 29) - 1);
+    }
+
+    private int slot(long key) {
+        // spread the bits, as tile keys of neighbouring tiles only differ in their low bits
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
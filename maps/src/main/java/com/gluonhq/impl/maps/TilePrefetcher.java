@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.gluonhq.impl.maps;
+
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * Hints the tile retriever about the tiles a {@link BaseMap} is likely to
+ * show next, so they can be downloaded into the cache before they are needed:
+ * a ring of tiles around the view, the tiles ahead of a drag, extrapolated
+ * from its velocity, and the tiles of the next zoom level while the map
+ * zooms. The retriever prefetches at a lower priority than the tiles that
+ * are shown, and at a limited rate.
+ * <p>
+ * The width of the ring, in tiles, is set with the system property
+ * <code>com.gluonhq.maps.prefetch.ring</code>, and how far ahead of a drag
+ * to look, in milliseconds, with <code>com.gluonhq.maps.prefetch.lookahead</code>.
+ */
+final class TilePrefetcher {
+
+    private static final Logger logger = Logger.getLogger(TilePrefetcher.class.getName());
+
+    static final String RING_PROPERTY = "com.gluonhq.maps.prefetch.ring";
+    static final int DEFAULT_RING = 1;
+    static final String LOOKAHEAD_PROPERTY = "com.gluonhq.maps.prefetch.lookahead";
+    static final int DEFAULT_LOOKAHEAD = 500;
+
+    // the maximum number of tiles hinted per update
+    private static final int MAX_PER_UPDATE = 64;
+    // updates further apart than this are not part of the same gesture
+    private static final long MAX_GAP = 250_000_000L;
+    // the weight of the latest sample in the velocities
+    private static final double SMOOTHING = 0.5;
+    // below this speed, in zoom levels per second, the map isn't zooming
+    private static final double MIN_ZOOM_SPEED = 0.1;
+
+    private final TileCache tiles;
+    private final int maxZoom;
+    private final int ring;
+    private final double lookahead;
+
+    private long lastTime;
+    private double lastZoom, lastTx, lastTy;
+    // the velocity of the translation, in pixels per second, and of the zoom, in levels per second
+    private double vx, vy, zoomSpeed;
+
+    // the tile ranges hinted by the last update, as zoom, imin, jmin, imax, jmax
+    private long[] ranges = new long[10];
+    private long[] lastRanges = new long[10];
+
+    TilePrefetcher(TileCache tiles, int maxZoom) {
+        this(tiles, maxZoom, intFromProperty(RING_PROPERTY, DEFAULT_RING),
+                intFromProperty(LOOKAHEAD_PROPERTY, DEFAULT_LOOKAHEAD));
+    }
+
+    TilePrefetcher(TileCache tiles, int maxZoom, int ring, int lookaheadMillis) {
+        this.tiles = tiles;
+        this.maxZoom = maxZoom;
+        this.ring = ring;
+        this.lookahead = lookaheadMillis / 1000.;
+    }
+
+    private static int intFromProperty(String name, int defaultValue) {
+        String value = System.getProperty(name);
+        if (value != null) {
+            try {
+                int result = Integer.parseInt(value.trim());
+                if (result >= 0) {
+                    return result;
+                }
+            } catch (NumberFormatException e) {
+                // fall through to the default
+            }
+            logger.warning("Invalid value for " + name + ": " + value);
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Called after the map loaded the tiles of its view.
+     *
+     * @param zoom the zoom of the map
+     * @param nearestZoom the zoom level of the tiles that are shown
+     * @param tx the horizontal translation of the map
+     * @param ty the vertical translation of the map
+     * @param width the width of the view
+     * @param height the height of the view
+     */
+    void update(double zoom, int nearestZoom, double tx, double ty, double width, double height) {
+        long now = System.nanoTime();
+        long elapsed = now - lastTime;
+        if (lastTime == 0 || elapsed >= MAX_GAP) {
+            vx = vy = zoomSpeed = 0;
+        } else if (elapsed > 0) {
+            double dt = elapsed / 1e9;
+            if (zoom == lastZoom) {
+                vx = smooth(vx, (tx - lastTx) / dt);
+                vy = smooth(vy, (ty - lastTy) / dt);
+                zoomSpeed = smooth(zoomSpeed, 0);
+            } else {
+                // the translation changes with the zoom, that's not a drag
+                vx = vy = 0;
+                zoomSpeed = smooth(zoomSpeed, (zoom - lastZoom) / dt);
+            }
+        }
+        lastTime = now;
+        lastZoom = zoom;
+        lastTx = tx;
+        lastTy = ty;
+
+        // the view, in tiles at the nearest zoom
+        double scale = Math.pow(2, nearestZoom - zoom) / 256;
+        double left = -tx * scale;
+        double top = -ty * scale;
+        double right = (width - tx) * scale;
+        double bottom = (height - ty) * scale;
+        // where the view will be after the lookahead time, if the drag goes on
+        double dx = -vx * lookahead * scale;
+        double dy = -vy * lookahead * scale;
+        setRange(0, nearestZoom, left + Math.min(dx, 0) - ring, top + Math.min(dy, 0) - ring,
+                right + Math.max(dx, 0) + ring, bottom + Math.max(dy, 0) + ring);
+        int next = zoomSpeed > MIN_ZOOM_SPEED ? nearestZoom + 1 :
+                zoomSpeed < -MIN_ZOOM_SPEED ? nearestZoom - 1 : -1;
+        if (next >= 0 && next < maxZoom) {
+            double f = Math.pow(2, next - nearestZoom);
+            setRange(5, next, left * f, top * f, right * f, bottom * f);
+        } else {
+            Arrays.fill(ranges, 5, 10, -1);
+        }
+        if (Arrays.equals(ranges, lastRanges)) {
+            // nothing new to hint
+            return;
+        }
+        long[] swap = lastRanges;
+        lastRanges = ranges;
+        ranges = swap;
+        double centerI = (left + right) / 2;
+        double centerJ = (top + bottom) / 2;
+        int budget = prefetch(lastRanges, 0, centerI, centerJ, MAX_PER_UPDATE);
+        double f = Math.pow(2, lastRanges[5] - nearestZoom);
+        prefetch(lastRanges, 5, centerI * f, centerJ * f, budget);
+    }
+
+    /**
+     * Hints the tiles of a view centered on a point, for instance the
+     * destination of an animation.
+     *
+     * @param zoom the zoom level of the tiles
+     * @param centerI the horizontal tile coordinate of the center
+     * @param centerJ the vertical tile coordinate of the center
+     * @param width the width of the view, in tiles
+     * @param height the height of the view, in tiles
+     */
+    void prefetchView(int zoom, double centerI, double centerJ, double width, double height) {
+        long[] range = new long[5];
+        setRange(range, 0, zoom, centerI - width / 2, centerJ - height / 2, centerI + width / 2, centerJ + height / 2);
+        prefetch(range, 0, centerI, centerJ, MAX_PER_UPDATE);
+    }
+
+    private static double smooth(double average, double sample) {
+        return average + SMOOTHING * (sample - average);
+    }
+
+    private void setRange(int offset, int zoom, double left, double top, double right, double bottom) {
+        setRange(ranges, offset, zoom, left, top, right, bottom);
+    }
+
+    private static void setRange(long[] range, int offset, int zoom, double left, double top, double right, double bottom) {
+        long n = 1L << zoom;
+        range[offset] = zoom;
+        range[offset + 1] = Math.max(0, (long) Math.floor(left));
+        range[offset + 2] = Math.max(0, (long) Math.floor(top));
+        range[offset + 3] = Math.min(n, (long) Math.ceil(right));
+        range[offset + 4] = Math.min(n, (long) Math.ceil(bottom));
+    }
+
+    /**
+     * Hints the tiles of a range that the map doesn't have yet, in rings
+     * around a center, so the closest tiles are hinted first, up to the
+     * budget.
+     *
+     * @return the budget left
+     */
+    private int prefetch(long[] range, int offset, double centerI, double centerJ, int budget) {
+        int zoom = (int) range[offset];
+        if (zoom < 0) {
+            return budget;
+        }
+        long imin = range[offset + 1], jmin = range[offset + 2];
+        long imax = range[offset + 3] - 1, jmax = range[offset + 4] - 1;
+        long ci = Math.max(imin, Math.min(imax, (long) Math.floor(centerI)));
+        long cj = Math.max(jmin, Math.min(jmax, (long) Math.floor(centerJ)));
+        long radius = Math.max(Math.max(ci - imin, imax - ci), Math.max(cj - jmin, jmax - cj));
+        for (long r = 0; r <= radius && budget > 0; r++) {
+            for (long i = Math.max(imin, ci - r); i <= Math.min(imax, ci + r) && budget > 0; i++) {
+                // the whole column on the sides of the ring, the top and bottom elsewhere
+                long step = i == ci - r || i == ci + r ? 1 : Math.max(1, 2 * r);
+                for (long j = cj - r; j <= cj + r && budget > 0; j += step) {
+                    if (j >= jmin && j <= jmax && tiles.peek(zoom, i, j) == null) {
+                        TileImageView.prefetch(zoom, i, j);
+                        budget--;
+                    }
+                }
+            }
+        }
+        return budget;
+    }
+}
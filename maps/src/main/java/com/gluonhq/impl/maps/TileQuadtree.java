@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gluonhq.impl.maps;
+
+import java.util.Arrays;
+
+/**
+ * A spatial index of elements positioned in normalized Mercator coordinates
+ * (see {@link Mercator}). Every node of the tree corresponds to a map tile:
+ * the root is tile 0/0/0 and the children of tile z/i/j are the four tiles
+ * at zoom level z + 1 that it covers. A node is split when it holds more
+ * than a fixed number of elements, so the tree adapts to the density of the
+ * data: sparse regions are covered by a few large tiles and dense regions
+ * by many small ones.
+ * Elements are compared by identity. This class is not thread-safe.
+ *
+ * @param <E> the type of the elements
+ */
+public final class TileQuadtree<E> {
+
+    /**
+     * Receives the elements found by a query.
+     *
+     * @param <E> the type of the elements
+     */
+    @FunctionalInterface
+    public interface Visitor<E> {
+        void visit(E element);
+    }
+
+    private static final int CAPACITY = 32;
+    private static final int MAX_LEVEL = 24;
+
+    private Node root = new Node(0, 0, 0);
+
+    /**
+     * Adds an element at the given position. Coordinates outside [0, 1) are
+     * clamped to the map.
+     *
+     * @param element the element
+     * @param x the normalized Mercator x coordinate
+     * @param y the normalized Mercator y coordinate
+     */
+    public void insert(E element, double x, double y) {
+        root.insert(element, clamp(x), clamp(y));
+    }
+
+    /**
+     * Removes an element that was added at the given position.
+     *
+     * @param element the element
+     * @param x the normalized Mercator x coordinate it was added with
+     * @param y the normalized Mercator y coordinate it was added with
+     * @return true if the element was found
+     */
+    public boolean remove(E element, double x, double y) {
+        return root.remove(element, clamp(x), clamp(y));
+    }
+
+    /**
+     * Visits all elements inside the given rectangle, bounds included.
+     *
+     * @param minX the minimum normalized Mercator x coordinate
+     * @param minY the minimum normalized Mercator y coordinate
+     * @param maxX the maximum normalized Mercator x coordinate
+     * @param maxY the maximum normalized Mercator y coordinate
+     * @param visitor receives every element inside the rectangle
+     */
+    @SuppressWarnings("unchecked")
+    public void query(double minX, double minY, double maxX, double maxY, Visitor<? super E> visitor) {
+        if (minX <= maxX && minY <= maxY) {
+            root.query(minX, minY, maxX, maxY, (Visitor<Object>) visitor);
+        }
+    }
+
+    public int size() {
+        return root.total;
+    }
+
+    public void clear() {
+        root = new Node(0, 0, 0);
+    }
+
+    private static double clamp(double v) {
+        // also maps NaN to 0
+        return v > 0 ? Math.min(v, Math.nextDown(1.)) : 0;
+    }
+
+    private static final class Node {
+        final int level;
+        final long i, j;
+        final double minX, minY, size;
+
+        // the elements of a leaf
+        double[] xs = new double[CAPACITY];
+        double[] ys = new double[CAPACITY];
+        Object[] elements = new Object[CAPACITY];
+        int count;
+
+        // the four children of an inner node: top-left, top-right, bottom-left, bottom-right
+        Node[] children;
+        // the number of elements in this subtree
+        int total;
+
+        Node(int level, long i, long j) {
+            this.level = level;
+            this.i = i;
+            this.j = j;
+            this.size = 1. / (1L << level);
+            this.minX = i * size;
+            this.minY = j * size;
+        }
+
+        void insert(Object element, double x, double y) {
+            total++;
+            if (children != null) {
+                child(x, y).insert(element, x, y);
+                return;
+            }
+            if (count == elements.length) {
+                if (level < MAX_LEVEL) {
+                    split();
+                    child(x, y).insert(element, x, y);
+                    return;
+                }
+                grow();
+            }
+            xs[count] = x;
+            ys[count] = y;
+            elements[count++] = element;
+        }
+
+        boolean remove(Object element, double x, double y) {
+            if (children != null) {
+                if (!child(x, y).remove(element, x, y)) {
+                    return false;
+                }
+                total--;
+                if (total <= CAPACITY / 2) {
+                    merge();
+                }
+                return true;
+            }
+            for (int k = 0; k < count; k++) {
+                if (elements[k] == element) {
+                    count--;
+                    xs[k] = xs[count];
+                    ys[k] = ys[count];
+                    elements[k] = elements[count];
+                    elements[count] = null;
+                    total--;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void query(double qMinX, double qMinY, double qMaxX, double qMaxY, Visitor<Object> visitor) {
+            if (total == 0 || qMaxX < minX || qMinX > minX + size || qMaxY < minY || qMinY > minY + size) {
+                return;
+            }
+            if (children != null) {
+                for (Node child : children) {
+                    child.query(qMinX, qMinY, qMaxX, qMaxY, visitor);
+                }
+                return;
+            }
+            for (int k = 0; k < count; k++) {
+                double x = xs[k];
+                double y = ys[k];
+                if (x >= qMinX && x <= qMaxX && y >= qMinY && y <= qMaxY) {
+                    visitor.visit(elements[k]);
+                }
+            }
+        }
+
+        private Node child(double x, double y) {
+            double half = size / 2;
+            int index = (x >= minX + half ? 1 : 0) + (y >= minY + half ? 2 : 0);
+            return children[index];
+        }
+
+        private void split() {
+            long ci = i * 2;
+            long cj = j * 2;
+            children = new Node[] {
+                    new Node(level + 1, ci, cj), new Node(level + 1, ci + 1, cj),
+                    new Node(level + 1, ci, cj + 1), new Node(level + 1, ci + 1, cj + 1)
+            };
+            for (int k = 0; k < count; k++) {
+                child(xs[k], ys[k]).insert(elements[k], xs[k], ys[k]);
+            }
+            xs = null;
+            ys = null;
+            elements = null;
+            count = 0;
+        }
+
+        private void merge() {
+            xs = new double[CAPACITY];
+            ys = new double[CAPACITY];
+            elements = new Object[CAPACITY];
+            count = 0;
+            Node[] old = children;
+            children = null;
+            for (Node child : old) {
+                child.collect(this);
+            }
+        }
+
+        private void collect(Node target) {
+            if (children != null) {
+                for (Node child : children) {
+                    child.collect(target);
+                }
+                return;
+            }
+            for (int k = 0; k < count; k++) {
+                target.xs[target.count] = xs[k];
+                target.ys[target.count] = ys[k];
+                target.elements[target.count++] = elements[k];
+            }
+        }
+
+        private void grow() {
+            int capacity = elements.length * 2;
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            elements = Arrays.copyOf(elements, capacity);
+        }
+    }
+}
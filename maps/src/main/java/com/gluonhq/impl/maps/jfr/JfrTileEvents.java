@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.gluonhq.impl.maps.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The Flight Recorder events of the tile pipeline. This class is only loaded
+ * when the <code>jdk.jfr</code> module is available. An event is only
+ * created when it is enabled in a running recording.
+ */
+final class JfrTileEvents extends TileEvents {
+
+    private final EventType loadTiles = EventType.getEventType(LoadTilesEvent.class);
+    private final EventType cleanupTiles = EventType.getEventType(CleanupTilesEvent.class);
+    private final EventType load = EventType.getEventType(TileLoadEvent.class);
+    private final EventType fetch = EventType.getEventType(TileFetchEvent.class);
+    private final EventType decode = EventType.getEventType(TileDecodeEvent.class);
+
+    @Override
+    Span start(Phase phase) {
+        MapEvent event;
+        switch (phase) {
+            case LOAD_TILES:
+                event = loadTiles.isEnabled() ? new LoadTilesEvent() : null;
+                break;
+            case CLEANUP_TILES:
+                event = cleanupTiles.isEnabled() ? new CleanupTilesEvent() : null;
+                break;
+            case LOAD:
+                event = load.isEnabled() ? new TileLoadEvent() : null;
+                break;
+            case FETCH:
+                event = fetch.isEnabled() ? new TileFetchEvent() : null;
+                break;
+            case DECODE:
+                event = decode.isEnabled() ? new TileDecodeEvent() : null;
+                break;
+            default:
+                event = null;
+        }
+        if (event != null) {
+            event.begin();
+        }
+        return event;
+    }
+
+    @Category("Gluon Maps")
+    @StackTrace(false)
+    abstract static class MapEvent extends Event implements Span {
+
+        @Override
+        public Span zoom(int zoom) {
+            return this;
+        }
+
+        @Override
+        public Span tile(int zoom, long i, long j) {
+            return this;
+        }
+
+        @Override
+        public Span bytes(long bytes) {
+            return this;
+        }
+
+        @Override
+        public Span count(int count) {
+            return this;
+        }
+
+        @Override
+        public Span source(String source) {
+            return this;
+        }
+
+        @Override
+        public Span status(int status) {
+            return this;
+        }
+
+        @Override
+        public Span failed(boolean failed) {
+            return this;
+        }
+    }
+
+    @Name("com.gluonhq.maps.LoadTiles")
+    @Label("Load Tiles")
+    @Description("A layout pass of a map, that adds the tiles of the view")
+    static final class LoadTilesEvent extends MapEvent {
+
+        @Label("Zoom")
+        int zoom;
+
+        @Label("Tiles")
+        @Description("The number of tiles in the view")
+        int tiles;
+
+        @Override
+        public Span zoom(int zoom) {
+            this.zoom = zoom;
+            return this;
+        }
+
+        @Override
+        public Span count(int count) {
+            this.tiles = count;
+            return this;
+        }
+    }
+
+    @Name("com.gluonhq.maps.CleanupTiles")
+    @Label("Cleanup Tiles")
+    @Description("A layout pass of a map, that removes the tiles out of the view")
+    static final class CleanupTilesEvent extends MapEvent {
+
+        @Label("Zoom")
+        int zoom;
+
+        @Label("Removed Tiles")
+        int removed;
+
+        @Override
+        public Span zoom(int zoom) {
+            this.zoom = zoom;
+            return this;
+        }
+
+        @Override
+        public Span count(int count) {
+            this.removed = count;
+            return this;
+        }
+    }
+
+    abstract static class TileEvent extends MapEvent {
+
+        @Label("Zoom")
+        int zoom;
+
+        @Label("I")
+        @Description("The horizontal position of the tile")
+        long i;
+
+        @Label("J")
+        @Description("The vertical position of the tile")
+        long j;
+
+        @Override
+        public Span tile(int zoom, long i, long j) {
+            this.zoom = zoom;
+            this.i = i;
+            this.j = j;
+            return this;
+        }
+    }
+
+    @Name("com.gluonhq.maps.TileLoad")
+    @Label("Tile Load")
+    @Description("The load of a tile by the tile retriever, until its image is decoded")
+    static final class TileLoadEvent extends TileEvent {
+
+        @Label("Source")
+        @Description("Where the tile comes from: memory, disk or network")
+        String source;
+
+        @Label("Failed")
+        boolean failed;
+
+        @Override
+        public Span source(String source) {
+            this.source = source;
+            return this;
+        }
+
+        @Override
+        public Span failed(boolean failed) {
+            this.failed = failed;
+            return this;
+        }
+    }
+
+    @Name("com.gluonhq.maps.TileFetch")
+    @Label("Tile Fetch")
+    @Description("The download of a tile from the tile server")
+    static final class TileFetchEvent extends TileEvent {
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Status")
+        @Description("The HTTP status code, or 0 if there is no response")
+        int status;
+
+        @Override
+        public Span bytes(long bytes) {
+            this.bytes = bytes;
+            return this;
+        }
+
+        @Override
+        public Span status(int status) {
+            this.status = status;
+            return this;
+        }
+    }
+
+    @Name("com.gluonhq.maps.TileDecode")
+    @Label("Tile Decode")
+    @Description("The decoding of a tile")
+    static final class TileDecodeEvent extends TileEvent {
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Failed")
+        boolean failed;
+
+        @Override
+        public Span bytes(long bytes) {
+            this.bytes = bytes;
+            return this;
+        }
+
+        @Override
+        public Span failed(boolean failed) {
+            this.failed = failed;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.gluonhq.impl.maps.jfr;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Emits Java Flight Recorder events for the phases of the tile pipeline, so
+ * map stalls can be correlated with GC and I/O in a recording.
+ * <p>
+ * The <code>jdk.jfr</code> module is optional: the events are defined by
+ * {@link JfrTileEvents}, which is only loaded if the module is available.
+ * Modular applications add it with <code>--add-modules jdk.jfr</code>.
+ * When the module is missing, or the event is not enabled in a running
+ * recording, {@link #begin(Phase)} returns null and the phase is not
+ * measured:
+ * <pre>
+ * TileEvents.Span span = TileEvents.begin(TileEvents.Phase.DECODE);
+ * ...
+ * if (span != null) {
+ *     span.tile(zoom, i, j).bytes(data.length).commit();
+ * }
+ * </pre>
+ */
+public abstract class TileEvents {
+
+    private static final Logger logger = Logger.getLogger(TileEvents.class.getName());
+
+    public enum Phase {
+        /** A layout pass of a map, that adds the tiles of the view */
+        LOAD_TILES,
+        /** A layout pass of a map, that removes the tiles out of the view */
+        CLEANUP_TILES,
+        /** The load of a tile by the tile retriever, from memory, disk or network */
+        LOAD,
+        /** The download of a tile */
+        FETCH,
+        /** The decoding of a tile */
+        DECODE
+    }
+
+    /** The source of a tile: downloaded tiles that are not written to the disk cache yet */
+    public static final String MEMORY = "memory";
+    /** The source of a tile: the disk cache */
+    public static final String DISK = "disk";
+    /** The source of a tile: the tile server */
+    public static final String NETWORK = "network";
+
+    /**
+     * A phase that is being measured. The fields that don't apply to the
+     * event of the phase are ignored.
+     */
+    public interface Span {
+
+        Span zoom(int zoom);
+
+        Span tile(int zoom, long i, long j);
+
+        Span bytes(long bytes);
+
+        Span count(int count);
+
+        Span source(String source);
+
+        Span status(int status);
+
+        Span failed(boolean failed);
+
+        /**
+         * Ends the phase and writes its event to the recording.
+         */
+        void commit();
+    }
+
+    private static final TileEvents EVENTS = load();
+
+    private static TileEvents load() {
+        try {
+            Class<?> type = Class.forName("com.gluonhq.impl.maps.jfr.JfrTileEvents");
+            return (TileEvents) type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // jdk.jfr is not available
+            if (logger.isLoggable(Level.FINE)) {
+                logger.fine("Flight Recorder events are not available: " + e);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Starts measuring a phase.
+     *
+     * @param phase the phase
+     * @return the span of the phase, or null if its event is not recorded
+     */
+    public static Span begin(Phase phase) {
+        return EVENTS == null ? null : EVENTS.start(phase);
+    }
+
+    abstract Span start(Phase phase);
+}
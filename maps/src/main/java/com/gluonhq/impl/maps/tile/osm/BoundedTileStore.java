@@ -0,0 +1,356 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gluonhq.impl.maps.tile.osm;
+
+import com.gluonhq.impl.maps.TileIndex;
+import com.gluonhq.maps.tile.TileCacheStatistics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A tile store that keeps another store within a budget of bytes and tiles,
+ * by evicting the least recently used tiles.
+ * <p>
+ * The expiry time of each tile is kept with its recency, once its metadata
+ * was written or read, so it is forgotten when the tile is evicted.
+ * <p>
+ * The recency of the tiles is kept in memory, in a list ordered by their
+ * last lookup, so an eviction never has to walk the cache directory. When the
+ * store is opened, the tiles are ordered by the stamp the underlying store
+ * reports for them, which is when they were stored.
+ * Evictions run on the given executor, once the budget is exceeded, and
+ * remove tiles until the store is back at 90% of its budget.
+ * <p>
+ * Writes and removals of the same tile are serialized with a striped lock,
+ * so the files of a tile are never written concurrently, for instance by a
+ * download and a revalidation of the same tile. The index is updated while
+ * that lock is held, and an eviction only removes a tile if it is still out
+ * of the index then, so a tile written in the meantime is kept.
+ */
+class BoundedTileStore implements TileStore {
+
+    private static final Logger logger = Logger.getLogger(BoundedTileStore.class.getName());
+
+    /**
+     * The system property that sets the maximum number of bytes of the disk cache
+     */
+    static final String MAX_BYTES_PROPERTY = "com.gluonhq.maps.cache.maxBytes";
+    /**
+     * The system property that sets the maximum number of tiles of the disk cache
+     */
+    static final String MAX_ENTRIES_PROPERTY = "com.gluonhq.maps.cache.maxEntries";
+
+    static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+    static final long DEFAULT_MAX_ENTRIES = Long.MAX_VALUE;
+
+    private static final double LOW_WATERMARK = 0.9;
+    private static final int LOCK_STRIPES = 64;
+
+    private final TileStore store;
+    private final long maxBytes;
+    private final long maxEntries;
+    private final Executor evictor;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    private final TileIndex<Node> nodes = new TileIndex<>();
+    // a circular list with the most recently used tile at head.next
+    private final Node head = new Node(0, 0);
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private boolean evicting;
+
+    private static final class Node {
+        final long key;
+        long size;
+        // 0 while unknown
+        long expires;
+        Node prev, next;
+
+        Node(long key, long size) {
+            this.key = key;
+            this.size = size;
+        }
+    }
+
+    BoundedTileStore(TileStore store, long maxBytes, long maxEntries, Executor evictor) {
+        this.store = store;
+        this.maxBytes = maxBytes;
+        this.maxEntries = maxEntries;
+        this.evictor = evictor;
+        head.prev = head;
+        head.next = head;
+        for (int k = 0; k < LOCK_STRIPES; k++) {
+            locks[k] = new Object();
+        }
+    }
+
+    static long maxBytesFromProperty() {
+        return longProperty(MAX_BYTES_PROPERTY, DEFAULT_MAX_BYTES);
+    }
+
+    static long maxEntriesFromProperty() {
+        return longProperty(MAX_ENTRIES_PROPERTY, DEFAULT_MAX_ENTRIES);
+    }
+
+    private static long longProperty(String name, long defaultValue) {
+        String value = System.getProperty(name);
+        if (value != null) {
+            try {
+                long result = Long.parseLong(value.trim());
+                if (result > 0) {
+                    return result;
+                }
+            } catch (NumberFormatException e) {
+                // fall through to the default
+            }
+            logger.warning("Invalid value for " + name + ": " + value);
+        }
+        return defaultValue;
+    }
+
+    @Override
+    public void open() {
+        store.open();
+        List<long[]> entries = new ArrayList<>(store.size());
+        store.forEach((key, size, stamp) -> entries.add(new long[] {key, size, stamp}));
+        // oldest first, so the most recently stored tile ends up at the head
+        entries.sort((a, b) -> Long.compare(a[2], b[2]));
+        synchronized (this) {
+            for (long[] entry : entries) {
+                add(entry[0], entry[1]);
+            }
+        }
+        evictIfNeeded();
+    }
+
+    @Override
+    public boolean isReady() {
+        return store.isReady();
+    }
+
+    /**
+     * Returns true if the tile is in the store, and marks it as recently
+     * used. This is counted as a hit or a miss of the cache.
+     */
+    @Override
+    public synchronized boolean contains(int zoom, long i, long j) {
+        Node node = nodes.get(TileIndex.key(zoom, i, j));
+        if (node == null) {
+            missCount++;
+            return false;
+        }
+        hitCount++;
+        unlink(node);
+        link(node);
+        return true;
+    }
+
+    /**
+     * Returns true if the tile is in the store, and marks it as recently
+     * used, like {@link #contains}, but without counting a hit or a miss,
+     * for lookups that don't show the tile, like those of seeding.
+     */
+    synchronized boolean touch(int zoom, long i, long j) {
+        Node node = nodes.get(TileIndex.key(zoom, i, j));
+        if (node == null) {
+            return false;
+        }
+        unlink(node);
+        link(node);
+        return true;
+    }
+
+    /**
+     * Returns the expiry time of the tile, or 0 if the tile is not in the
+     * store or its metadata was not written or read since the store opened.
+     */
+    synchronized long getExpires(int zoom, long i, long j) {
+        Node node = nodes.get(TileIndex.key(zoom, i, j));
+        return node == null ? 0 : node.expires;
+    }
+
+    private synchronized void setExpires(long key, TileMetadata metadata) {
+        Node node = nodes.get(key);
+        if (node != null) {
+            node.expires = metadata == null ? 0 : metadata.getExpires();
+        }
+    }
+
+    @Override
+    public InputStream read(int zoom, long i, long j) throws IOException {
+        return store.read(zoom, i, j);
+    }
+
+    @Override
+    public void write(int zoom, long i, long j, byte[] data, TileMetadata metadata) throws IOException {
+        synchronized (lock(TileIndex.key(zoom, i, j))) {
+            store.write(zoom, i, j, data, metadata);
+            synchronized (this) {
+                add(TileIndex.key(zoom, i, j), data.length);
+            }
+        }
+        setExpires(TileIndex.key(zoom, i, j), metadata);
+        evictIfNeeded();
+    }
+
+    @Override
+    public TileMetadata readMetadata(int zoom, long i, long j) throws IOException {
+        TileMetadata metadata = store.readMetadata(zoom, i, j);
+        if (metadata != null) {
+            setExpires(TileIndex.key(zoom, i, j), metadata);
+        }
+        return metadata;
+    }
+
+    @Override
+    public void writeMetadata(int zoom, long i, long j, TileMetadata metadata) throws IOException {
+        synchronized (lock(TileIndex.key(zoom, i, j))) {
+            store.writeMetadata(zoom, i, j, metadata);
+        }
+        setExpires(TileIndex.key(zoom, i, j), metadata);
+    }
+
+    @Override
+    public void remove(int zoom, long i, long j) throws IOException {
+        synchronized (lock(TileIndex.key(zoom, i, j))) {
+            synchronized (this) {
+                Node node = nodes.remove(TileIndex.key(zoom, i, j));
+                if (node != null) {
+                    unlink(node);
+                    size -= node.size;
+                }
+            }
+            store.remove(zoom, i, j);
+        }
+    }
+
+    @Override
+    public int size() {
+        return store.size();
+    }
+
+    @Override
+    public void forEach(EntryVisitor visitor) {
+        store.forEach(visitor);
+    }
+
+    synchronized TileCacheStatistics getStatistics() {
+        return new TileCacheStatistics(hitCount, missCount, evictionCount, nodes.size(), size, maxBytes);
+    }
+
+    private Object lock(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return locks[(int) (h >>> 58) & (LOCK_STRIPES - 1)];
+    }
+
+    private void add(long key, long tileSize) {
+        Node node = nodes.get(key);
+        if (node == null) {
+            node = new Node(key, tileSize);
+            nodes.put(key, node);
+        } else {
+            unlink(node);
+            size -= node.size;
+            node.size = tileSize;
+        }
+        size += tileSize;
+        link(node);
+    }
+
+    private void link(Node node) {
+        node.prev = head;
+        node.next = head.next;
+        head.next.prev = node;
+        head.next = node;
+    }
+
+    private static void unlink(Node node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+    }
+
+    private void evictIfNeeded() {
+        synchronized (this) {
+            if (evicting || (size <= maxBytes && nodes.size() <= maxEntries)) {
+                return;
+            }
+            evicting = true;
+        }
+        evictor.execute(this::evict);
+    }
+
+    private void evict() {
+        long[] victims;
+        synchronized (this) {
+            long targetBytes = (long) (maxBytes * LOW_WATERMARK);
+            long targetEntries = (long) (maxEntries * LOW_WATERMARK);
+            victims = new long[16];
+            int count = 0;
+            while (head.prev != head && (size > targetBytes || nodes.size() > targetEntries)) {
+                Node node = head.prev;
+                unlink(node);
+                nodes.remove(node.key);
+                size -= node.size;
+                evictionCount++;
+                if (count == victims.length) {
+                    victims = Arrays.copyOf(victims, count * 2);
+                }
+                victims[count++] = node.key;
+            }
+            victims = Arrays.copyOf(victims, count);
+            evicting = false;
+        }
+        for (long key : victims) {
+            try {
+                synchronized (lock(key)) {
+                    synchronized (this) {
+                        if (nodes.get(key) != null) {
+                            // written again since it was picked
+                            continue;
+                        }
+                    }
+                    store.remove(TileIndex.zoom(key), TileIndex.i(key), TileIndex.j(key));
+                }
+            } catch (IOException e) {
+                logger.log(Level.FINE, "Error evicting a cached tile", e);
+            }
+        }
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("Evicted " + victims.length + " cached tiles");
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016, 2021, Gluon
+ * Copyright (c) 2016, 2026, Gluon
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -28,21 +28,39 @@
 package com.gluonhq.impl.maps.tile.osm;
 
 import com.gluonhq.attach.storage.StorageService;
+import com.gluonhq.impl.maps.Metrics;
+import com.gluonhq.impl.maps.TileIndex;
+import com.gluonhq.impl.maps.jfr.TileEvents;
+import com.gluonhq.maps.tile.TileCacheStatistics;
+import com.gluonhq.maps.tile.TileMetricsRecorder;
+import com.gluonhq.maps.tile.TileRegion;
+import com.gluonhq.maps.tile.TileSeedProgress;
+import com.gluonhq.maps.tile.TileSeeder;
 import javafx.scene.image.Image;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URL;
-import java.net.URLConnection;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -50,7 +68,11 @@ public class CachedOsmTileRetriever extends OsmTileRetriever {
 
     private static final Logger logger = Logger.getLogger(CachedOsmTileRetriever.class.getName());
     private static final int TIMEOUT = 10000;
-    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(2, new DaemonThreadFactory());
+    // the time until a tile whose revalidation failed is revalidated again
+    private static final long REVALIDATION_RETRY_DELAY = 5 * 60 * 1000L;
+    private static final TileDownloadScheduler SCHEDULER =
+            new TileDownloadScheduler(TileDownloadScheduler.threadsFromProperty(),
+                    TileDownloadScheduler.prefetchRateFromProperty());
 
     static File cacheRoot;
     static boolean hasFileCache;
@@ -78,59 +100,740 @@ public class CachedOsmTileRetriever extends OsmTileRetriever {
         }
     }
 
+    private static final TileDecoder DECODER =
+            new TileDecoder(TileDecoder.threadsFromProperty(), TileDecoder.formatFromProperty(), new DaemonThreadFactory());
+    // opens the store, then serves the lookups made before it was ready, and evicts tiles
+    private static final ExecutorService DISK_EXECUTOR = Executors.newSingleThreadExecutor(new DaemonThreadFactory());
+    private static final BoundedTileStore STORE = hasFileCache ?
+            new BoundedTileStore(TileStore.create(cacheRoot.toPath()), BoundedTileStore.maxBytesFromProperty(),
+                    BoundedTileStore.maxEntriesFromProperty(), DISK_EXECUTOR) : null;
+    // the tiles being revalidated, the expiry times of the cached tiles are kept by the store
+    private static final TileIndex<Boolean> REVALIDATING = new TileIndex<>();
+    // writes downloaded tiles to the store, off the path to showing them
+    private static final ExecutorService WRITE_EXECUTOR = Executors.newSingleThreadExecutor(new DaemonThreadFactory());
+    // the downloaded tiles that are not written to the store yet
+    private static final TileIndex<byte[]> PENDING_WRITES = new TileIndex<>();
+    // the queued and running prefetches
+    private static final TileIndex<CompletableFuture<byte[]>> PREFETCHES = new TileIndex<>();
+    private static final Seeder SEEDER = STORE != null ? new Seeder() : null;
+    static {
+        if (STORE != null) {
+            DISK_EXECUTOR.execute(STORE::open);
+        }
+    }
+
+    /**
+     * Loads a tile without touching the file system on the calling thread.
+     * Once the tile store is open, a cached tile is read and decoded by the
+     * decoder, and a tile that isn't cached is downloaded. Before that, the
+     * lookup is done on the thread that opens the store.
+     */
     @Override
     public CompletableFuture<Image> loadTile(int zoom, long i, long j) {
-        Image image = fromFileCache(zoom, i, j);
-        if (image != null) {
-            return CompletableFuture.completedFuture(image);
+        TileEvents.Span span = TileEvents.begin(TileEvents.Phase.LOAD);
+        CompletableFuture<Image> result = load(zoom, i, j, span);
+        if (span != null) {
+            span.tile(zoom, i, j);
+            result.whenComplete((image, t) -> span.failed(t != null).commit());
+        }
+        return result;
+    }
+
+    private static CompletableFuture<Image> load(int zoom, long i, long j, TileEvents.Span span) {
+        if (STORE == null) {
+            setSource(span, TileEvents.NETWORK);
+            return download(zoom, i, j);
+        }
+        byte[] pending = getPendingWrite(zoom, i, j);
+        if (pending != null) {
+            recordLookup(true);
+            setSource(span, TileEvents.MEMORY);
+            return DECODER.decode(zoom, i, j, pending);
+        }
+        if (STORE.isReady()) {
+            return loadFromStore(zoom, i, j, span);
+        }
+        CompletableFuture<Image> result = new CompletableFuture<>();
+        DISK_EXECUTOR.execute(() -> {
+            if (!result.isDone()) {
+                forward(loadFromStore(zoom, i, j, span), result);
+            }
+        });
+        return result;
+    }
+
+    private static CompletableFuture<Image> loadFromStore(int zoom, long i, long j, TileEvents.Span span) {
+        boolean cached = STORE.contains(zoom, i, j);
+        recordLookup(cached);
+        setSource(span, cached ? TileEvents.DISK : TileEvents.NETWORK);
+        return cached ? loadCached(zoom, i, j) : download(zoom, i, j);
+    }
+
+    private static void setSource(TileEvents.Span span, String source) {
+        if (span != null) {
+            span.source(source);
+        }
+    }
+
+    private static void recordLookup(boolean hit) {
+        TileMetricsRecorder metrics = Metrics.recorder();
+        if (metrics != null) {
+            metrics.recordDiskCacheLookup(hit);
+        }
+    }
+
+    // reads and decodes a cached tile on the decode threads, and downloads it if that fails
+    private static CompletableFuture<Image> loadCached(int zoom, long i, long j) {
+        CompletableFuture<Image> result = new CompletableFuture<>();
+        DECODER.execute(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            Image image = readFromStore(zoom, i, j);
+            if (image != null) {
+                revalidateIfStale(zoom, i, j);
+                result.complete(image);
+            } else {
+                forward(download(zoom, i, j), result);
+            }
+        });
+        return result;
+    }
+
+    // completes the target with the source, and cancels the source when the target is cancelled
+    private static void forward(CompletableFuture<Image> source, CompletableFuture<Image> target) {
+        target.whenComplete((r, t) -> {
+            if (target.isCancelled()) {
+                source.cancel(false);
+            }
+        });
+        source.whenComplete((r, t) -> {
+            if (source.isCancelled()) {
+                target.cancel(false);
+            } else if (t != null) {
+                target.completeExceptionally(t);
+            } else {
+                target.complete(r);
+            }
+        });
+    }
+
+    private static CompletableFuture<Image> download(int zoom, long i, long j) {
+        CompletableFuture<byte[]> prefetch = takePrefetch(zoom, i, j);
+        if (prefetch != null) {
+            return fromPrefetch(zoom, i, j, prefetch);
+        }
+        return SCHEDULER.submit(zoom, i, j, handle -> {
+            if (logger.isLoggable(Level.FINE)) {
+                logger.fine("start downloading tile " + zoom + "/" + i + "/" + j);
+            }
+            return Downloader.fetch(zoom, i, j, handle).thenCompose(data -> DECODER.decode(zoom, i, j, data));
+        });
+    }
+
+    /**
+     * Downloads a tile into the cache, at a low priority, unless it is
+     * cached, or being downloaded already. The tile isn't decoded.
+     * Without a cache, there is nowhere to keep the tile, so the hint is
+     * ignored.
+     */
+    @Override
+    public void prefetch(int zoom, long i, long j) {
+        if (STORE == null || !STORE.isReady() || getPendingWrite(zoom, i, j) != null || STORE.contains(zoom, i, j)) {
+            return;
+        }
+        long key = TileIndex.key(zoom, i, j);
+        synchronized (PREFETCHES) {
+            if (PREFETCHES.get(key) != null) {
+                return;
+            }
+            CompletableFuture<byte[]> future = SCHEDULER.prefetch(zoom, i, j, handle -> {
+                if (logger.isLoggable(Level.FINE)) {
+                    logger.fine("start prefetching tile " + zoom + "/" + i + "/" + j);
+                }
+                return Downloader.fetch(zoom, i, j, handle);
+            });
+            if (future.isDone()) {
+                return;
+            }
+            PREFETCHES.put(key, future);
+            future.whenComplete((data, t) -> {
+                synchronized (PREFETCHES) {
+                    if (PREFETCHES.get(key) == future) {
+                        PREFETCHES.remove(key);
+                    }
+                }
+            });
+        }
+    }
+
+    private static CompletableFuture<byte[]> takePrefetch(int zoom, long i, long j) {
+        synchronized (PREFETCHES) {
+            return PREFETCHES.isEmpty() ? null : PREFETCHES.remove(TileIndex.key(zoom, i, j));
+        }
+    }
+
+    // a tile that is needed while it is being prefetched takes over the prefetch
+    private static CompletableFuture<Image> fromPrefetch(int zoom, long i, long j, CompletableFuture<byte[]> prefetch) {
+        SCHEDULER.promote(prefetch);
+        CompletableFuture<Image> result = new CompletableFuture<>();
+        result.whenComplete((r, t) -> {
+            if (result.isCancelled()) {
+                prefetch.cancel(false);
+            }
+        });
+        prefetch.whenComplete((data, t) -> {
+            if (prefetch.isCancelled()) {
+                result.cancel(false);
+            } else if (t != null) {
+                result.completeExceptionally(t);
+            } else {
+                forward(DECODER.decode(zoom, i, j, data), result);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Called when a cached tile is used. Unless the tile is known to be fresh,
+     * its metadata is read on the disk thread, and if it expired, the tile is
+     * revalidated in the background, at the priority of a prefetch. The stale
+     * tile is used meanwhile, and the next load of the tile gets the result
+     * of the revalidation. If the revalidation fails, for instance while
+     * offline, the tile is kept as fresh for a while, so it isn't requested
+     * again each time it is used.
+     */
+    private static void revalidateIfStale(int zoom, long i, long j) {
+        long key = TileIndex.key(zoom, i, j);
+        if (System.currentTimeMillis() < STORE.getExpires(zoom, i, j)) {
+            return;
         }
-        return CompletableFuture.supplyAsync(() -> {
-            logger.fine("start downloading tile " + zoom + "/" + i + "/" + j);
+        synchronized (REVALIDATING) {
+            if (REVALIDATING.get(key) != null) {
+                return;
+            }
+            REVALIDATING.put(key, Boolean.TRUE);
+        }
+        DISK_EXECUTOR.execute(() -> {
+            TileMetadata metadata = null;
             try {
-                return CacheThread.cacheImage(zoom, i, j);
+                metadata = STORE.readMetadata(zoom, i, j);
             } catch (IOException e) {
-                throw new RuntimeException("Error " + e.getMessage());
+                logger.log(Level.FINE, "Error reading the metadata of cached tile " + zoom + "/" + i + "/" + j, e);
+            }
+            if (metadata != null && metadata.isFresh(System.currentTimeMillis())) {
+                synchronized (REVALIDATING) {
+                    REVALIDATING.remove(key);
+                }
+                return;
             }
-        }, EXECUTOR);
+            TileMetadata previous = metadata;
+            TileDownloadScheduler.Download<Void> revalidation = handle -> Downloader.revalidate(zoom, i, j, previous, handle);
+            // without prefetches, revalidations are queued with the other downloads
+            CompletableFuture<Void> future = SCHEDULER.isPrefetchEnabled() ?
+                    SCHEDULER.prefetch(zoom, i, j, revalidation) : SCHEDULER.submit(zoom, i, j, revalidation);
+            future.whenComplete((v, t) -> {
+                // a cancelled revalidation, or one refused by a full queue, is tried again on the next use
+                if (t != null && !future.isCancelled()) {
+                    if (logger.isLoggable(Level.FINE)) {
+                        logger.fine("Revalidation of tile " + zoom + "/" + i + "/" + j + " didn't complete: " + t);
+                    }
+                    postponeRevalidation(zoom, i, j, previous);
+                }
+                synchronized (REVALIDATING) {
+                    REVALIDATING.remove(key);
+                }
+            });
+        });
+    }
+
+    private static void postponeRevalidation(int zoom, long i, long j, TileMetadata metadata) {
+        long retry = System.currentTimeMillis() + REVALIDATION_RETRY_DELAY;
+        try {
+            STORE.writeMetadata(zoom, i, j, metadata == null ? new TileMetadata(null, null, retry) :
+                    new TileMetadata(metadata.getETag(), metadata.getLastModified(), retry));
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Error caching the metadata of tile " + zoom + "/" + i + "/" + j, e);
+        }
+    }
+
+    private static byte[] getPendingWrite(int zoom, long i, long j) {
+        synchronized (PENDING_WRITES) {
+            return PENDING_WRITES.isEmpty() ? null : PENDING_WRITES.get(TileIndex.key(zoom, i, j));
+        }
     }
 
+    @Override
+    public void setViewport(int zoom, double centerI, double centerJ) {
+        SCHEDULER.setViewport(zoom, centerI, centerJ);
+    }
 
-    static private Image fromFileCache(int zoom, long i, long j) {
-        if (!hasFileCache) {
+    /**
+     * Returns the statistics of the file cache. Its capacity is set with the
+     * system property <code>com.gluonhq.maps.cache.maxBytes</code>, and
+     * its maximum number of tiles with
+     * <code>com.gluonhq.maps.cache.maxEntries</code>.
+     */
+    @Override
+    public Optional<TileCacheStatistics> getCacheStatistics() {
+        return Optional.ofNullable(STORE).map(BoundedTileStore::getStatistics);
+    }
+
+    /**
+     * Returns the seeder of the file cache. Seeded tiles count towards the
+     * capacity of the cache, like any other cached tile.
+     */
+    @Override
+    public Optional<TileSeeder> getSeeder() {
+        return Optional.ofNullable(SEEDER);
+    }
+
+
+    // reads and decodes a cached tile, on the decode threads
+    static private Image readFromStore(int zoom, long i, long j) {
+        byte[] data;
+        try (InputStream inputStream = STORE.read(zoom, i, j)) {
+            if (inputStream == null) {
+                return null;
+            }
+            data = inputStream.readAllBytes();
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Error reading cached tile " + zoom + "/" + i + "/" + j, e);
             return null;
         }
-        String tag = zoom + File.separator + i + File.separator + j + ".png";
-        File f = new File(cacheRoot, tag);
-        return f.exists() ? new Image(f.toURI().toString(), true) : null;
-    }
-
-    private static class CacheThread {
-
-        public static Image cacheImage(int zoom, long i, long j) throws IOException {
-            File file = doCache(buildImageUrlString(zoom, i, j), zoom, i, j);
-            return new Image(new FileInputStream(file));
-        }
-
-        private static File doCache(String urlString, int zoom, long i, long j) throws IOException {
-            final URLConnection openConnection;
-            URL url = new URL(urlString);
-            openConnection = url.openConnection();
-            openConnection.addRequestProperty("User-Agent", httpAgent);
-            openConnection.setConnectTimeout(TIMEOUT);
-            openConnection.setReadTimeout(TIMEOUT);
-            try (InputStream inputStream = openConnection.getInputStream()) {
-                String enc = File.separator + zoom + File.separator + i + File.separator + j + ".png";
-                logger.fine("retrieve " + urlString + " and store " + enc);
-                File candidate = new File(cacheRoot, enc);
-                candidate.getParentFile().mkdirs();
-                try (FileOutputStream fos = new FileOutputStream(candidate)) {
-                    byte[] buff = new byte[4096];
-                    int len = inputStream.read(buff);
-                    while (len > 0) {
-                        fos.write(buff, 0, len);
-                        len = inputStream.read(buff);
-                    }
-                    return candidate;
+        try {
+            return DECODER.decodeNow(zoom, i, j, data);
+        } catch (IOException e) {
+            // the tile is damaged, download it again
+            logger.log(Level.FINE, "Error decoding cached tile " + zoom + "/" + i + "/" + j, e);
+            removeFromStore(zoom, i, j);
+            return null;
+        }
+    }
+
+    private static void removeFromStore(int zoom, long i, long j) {
+        try {
+            STORE.remove(zoom, i, j);
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Error removing cached tile " + zoom + "/" + i + "/" + j, e);
+        }
+    }
+
+    private static class Downloader {
+
+        private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofMillis(TIMEOUT))
+                // runs the completion of the downloads, which hands the tiles to the decoder and the store
+                .executor(Executors.newFixedThreadPool(TileDownloadScheduler.threadsFromProperty(), new DaemonThreadFactory()))
+                .build();
+
+        /**
+         * Starts downloading a tile, and stores it. The client is shared, so
+         * all downloads reuse its connections, and with HTTP/2 they are
+         * multiplexed over a single connection to the tile server.
+         */
+        static CompletableFuture<byte[]> fetch(int zoom, long i, long j, TileDownloadScheduler.Handle handle) {
+            HttpRequest request = request(zoom, i, j).build();
+            if (logger.isLoggable(Level.FINE)) {
+                logger.fine("retrieve " + request.uri());
+            }
+            TileMetricsRecorder metrics = Metrics.recorder();
+            TileEvents.Span span = TileEvents.begin(TileEvents.Phase.FETCH);
+            long start = metrics != null ? System.nanoTime() : 0;
+            CancellableBodyHandler body = new CancellableBodyHandler();
+            CompletableFuture<HttpResponse<byte[]>> response = HTTP_CLIENT.sendAsync(request, body);
+            handle.setOnCancel(() -> {
+                body.cancel();
+                response.cancel(true);
+            });
+            if (metrics != null || span != null) {
+                response.whenComplete((r, t) -> {
+                    if (metrics != null) {
+                        metrics.recordDownload(System.nanoTime() - start, t == null && r.statusCode() == 200);
+                    }
+                    if (span != null) {
+                        span.tile(zoom, i, j)
+                                .bytes(t == null ? r.body().length : 0)
+                                .status(t == null ? r.statusCode() : 0)
+                                .commit();
+                    }
+                });
+            }
+            // the tile is only stored once it is complete, so a cancelled download never ends up in the cache
+            return response.thenApply(r -> {
+                if (r.statusCode() != 200) {
+                    throw new CompletionException(new IOException("Error " + r.statusCode() + " retrieving " + r.uri()));
+                }
+                checkCancelled(handle);
+                byte[] data = r.body();
+                store(zoom, i, j, data, TileMetadata.of(r.headers(), System.currentTimeMillis(), null));
+                return data;
+            });
+        }
+
+        /**
+         * Asks the server whether a cached tile changed, with the validators
+         * of its metadata. If it didn't, the server answers 304 without a body
+         * and only the metadata is updated, otherwise the new tile is stored.
+         */
+        static CompletableFuture<Void> revalidate(int zoom, long i, long j, TileMetadata metadata, TileDownloadScheduler.Handle handle) {
+            HttpRequest.Builder builder = request(zoom, i, j);
+            if (metadata != null && metadata.getETag() != null) {
+                builder.header("If-None-Match", metadata.getETag());
+            }
+            if (metadata != null && metadata.getLastModified() != null) {
+                builder.header("If-Modified-Since", metadata.getLastModified());
+            }
+            HttpRequest request = builder.build();
+            if (logger.isLoggable(Level.FINE)) {
+                logger.fine("revalidate " + request.uri());
+            }
+            CancellableBodyHandler body = new CancellableBodyHandler();
+            CompletableFuture<HttpResponse<byte[]>> response = HTTP_CLIENT.sendAsync(request, body);
+            handle.setOnCancel(() -> {
+                body.cancel();
+                response.cancel(true);
+            });
+            return response.thenAccept(r -> {
+                TileMetadata updated = TileMetadata.of(r.headers(), System.currentTimeMillis(), metadata);
+                if (r.statusCode() == 304) {
+                    try {
+                        STORE.writeMetadata(zoom, i, j, updated);
+                    } catch (IOException e) {
+                        logger.log(Level.WARNING, "Error caching the metadata of tile " + zoom + "/" + i + "/" + j, e);
+                    }
+                } else if (r.statusCode() == 200) {
+                    store(zoom, i, j, r.body(), updated);
+                } else {
+                    throw new CompletionException(new IOException("Error " + r.statusCode() + " revalidating " + r.uri()));
+                }
+            });
+        }
+
+        private static HttpRequest.Builder request(int zoom, long i, long j) {
+            return HttpRequest.newBuilder(URI.create(buildImageUrlString(zoom, i, j)))
+                    .header("User-Agent", httpAgent)
+                    .timeout(Duration.ofMillis(TIMEOUT))
+                    .GET();
+        }
+
+        /**
+         * Writes a downloaded tile to the store, in the background, so the
+         * tile can be decoded and shown without waiting for the disk. Until
+         * the write completes, loads of the tile are served from memory.
+         */
+        private static void store(int zoom, long i, long j, byte[] data, TileMetadata metadata) {
+            if (STORE == null) {
+                return;
+            }
+            long key = TileIndex.key(zoom, i, j);
+            synchronized (PENDING_WRITES) {
+                PENDING_WRITES.put(key, data);
+            }
+            WRITE_EXECUTOR.execute(() -> {
+                try {
+                    STORE.write(zoom, i, j, data, metadata);
+                } catch (IOException e) {
+                    logger.log(Level.WARNING, "Error caching tile " + zoom + "/" + i + "/" + j, e);
+                } finally {
+                    synchronized (PENDING_WRITES) {
+                        // unless a newer download of the tile is waiting to be written
+                        if (PENDING_WRITES.get(key) == data) {
+                            PENDING_WRITES.remove(key);
+                        }
+                    }
+                }
+            });
+        }
+
+        private static void checkCancelled(TileDownloadScheduler.Handle handle) {
+            if (handle.isCancelled()) {
+                throw new CancellationException();
+            }
+        }
+    }
+
+    /**
+     * Seeds the store with the tiles of regions, and exports and imports tile
+     * packs, one at a time, on a thread of its own. Seeding downloads the
+     * tiles directly rather than through the scheduler, which drops the
+     * downloads of tiles that are far from the view.
+     */
+    private static class Seeder implements TileSeeder {
+
+        // the interval between two progress reports, in nanoseconds
+        private static final long PROGRESS_INTERVAL = 500_000_000L;
+
+        private final ExecutorService executor = Executors.newSingleThreadExecutor(new DaemonThreadFactory());
+
+        @Override
+        public CompletableFuture<TileSeedProgress> seed(TileRegion region, int concurrency, Consumer<TileSeedProgress> listener) {
+            if (concurrency < 1) {
+                throw new IllegalArgumentException("Invalid concurrency " + concurrency);
+            }
+            return submit(result -> new Seeding(region, concurrency, listener, result).run());
+        }
+
+        @Override
+        public CompletableFuture<Long> exportPack(TileRegion region, Path pack) {
+            return submit(result -> export(region, pack, result));
+        }
+
+        @Override
+        public CompletableFuture<Long> importPack(Path pack) {
+            return submit(result -> importFrom(pack, result));
+        }
+
+        private interface Operation<T> {
+            T run(CompletableFuture<T> result) throws Exception;
+        }
+
+        private <T> CompletableFuture<T> submit(Operation<T> operation) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            executor.execute(() -> {
+                if (result.isDone()) {
+                    return;
+                }
+                try {
+                    awaitStore();
+                    result.complete(operation.run(result));
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            });
+            return result;
+        }
+
+        // waits until the store is open, and the downloaded tiles are written to it
+        private static void awaitStore() throws Exception {
+            if (!STORE.isReady()) {
+                DISK_EXECUTOR.submit(() -> {}).get();
+            }
+            WRITE_EXECUTOR.submit(() -> {}).get();
+        }
+
+        private static long export(TileRegion region, Path pack, CompletableFuture<Long> result) throws IOException {
+            try (TilePack.Writer writer = new TilePack.Writer(pack)) {
+                IOException[] error = new IOException[1];
+                boolean complete = region.forEachTile((zoom, i, j) -> {
+                    if (result.isDone()) {
+                        return false;
+                    }
+                    if (!STORE.touch(zoom, i, j)) {
+                        return true;
+                    }
+                    byte[] data;
+                    TileMetadata metadata;
+                    try (InputStream in = STORE.read(zoom, i, j)) {
+                        if (in == null) {
+                            return true;
+                        }
+                        data = in.readAllBytes();
+                        metadata = STORE.readMetadata(zoom, i, j);
+                    } catch (IOException e) {
+                        logger.log(Level.FINE, "Error reading cached tile " + zoom + "/" + i + "/" + j, e);
+                        return true;
+                    }
+                    try {
+                        writer.write(zoom, i, j, data, metadata);
+                        return true;
+                    } catch (IOException e) {
+                        error[0] = e;
+                        return false;
+                    }
+                });
+                if (error[0] != null) {
+                    throw error[0];
+                }
+                if (!complete) {
+                    throw new CancellationException();
+                }
+                writer.commit();
+                logger.info("Exported " + writer.getCount() + " tiles of " + region + " to " + pack);
+                return writer.getCount();
+            }
+        }
+
+        private static long importFrom(Path pack, CompletableFuture<Long> result) throws IOException {
+            long[] count = {0};
+            TilePack.read(pack, (zoom, i, j, data, metadata) -> {
+                if (result.isDone()) {
+                    throw new CancellationException();
+                }
+                if (data == null) {
+                    STORE.remove(zoom, i, j);
+                } else {
+                    STORE.write(zoom, i, j, data, metadata);
+                    count[0]++;
+                }
+            });
+            logger.info("Imported " + count[0] + " tiles from " + pack);
+            return count[0];
+        }
+
+        /**
+         * Downloads the tiles of a region that are not cached, with at most a
+         * given number of downloads running at the same time. The progress
+         * is reported from the seeding thread, while it waits for a download
+         * to finish.
+         */
+        private static final class Seeding {
+
+            private final TileRegion region;
+            private final int concurrency;
+            private final Consumer<TileSeedProgress> listener;
+            private final CompletableFuture<TileSeedProgress> result;
+            private final Semaphore permits;
+            private final Set<SeedHandle> running = ConcurrentHashMap.newKeySet();
+            private final LongAdder downloaded = new LongAdder();
+            private final LongAdder failed = new LongAdder();
+            private final LongAdder bytes = new LongAdder();
+            private final long start = System.nanoTime();
+            private long skipped;
+            private long nextReport = start + PROGRESS_INTERVAL;
+
+            Seeding(TileRegion region, int concurrency, Consumer<TileSeedProgress> listener,
+                    CompletableFuture<TileSeedProgress> result) {
+                this.region = region;
+                this.concurrency = concurrency;
+                this.listener = listener;
+                this.result = result;
+                this.permits = new Semaphore(concurrency);
+            }
+
+            TileSeedProgress run() throws Exception {
+                result.whenComplete((p, t) -> {
+                    if (result.isCancelled()) {
+                        running.forEach(SeedHandle::cancel);
+                    }
+                });
+                boolean complete = region.forEachTile((zoom, i, j) -> {
+                    if (result.isDone()) {
+                        return false;
+                    }
+                    if (getPendingWrite(zoom, i, j) != null || STORE.touch(zoom, i, j)) {
+                        skipped++;
+                    } else if (acquire(1)) {
+                        download(zoom, i, j);
+                    } else {
+                        return false;
+                    }
+                    reportIfDue();
+                    return true;
+                });
+                // waits for the running downloads, and for their tiles to be written
+                if (!complete || !acquire(concurrency)) {
+                    throw new CancellationException();
+                }
+                WRITE_EXECUTOR.submit(() -> {}).get();
+                TileSeedProgress progress = snapshot(System.nanoTime());
+                report(progress);
+                logger.info("Seeded " + region + ": " + progress);
+                return progress;
+            }
+
+            private void download(int zoom, long i, long j) {
+                SeedHandle handle = new SeedHandle();
+                running.add(handle);
+                CompletableFuture<byte[]> future;
+                try {
+                    future = Downloader.fetch(zoom, i, j, handle);
+                } catch (RuntimeException e) {
+                    future = CompletableFuture.failedFuture(e);
+                }
+                future.whenComplete((data, t) -> {
+                    running.remove(handle);
+                    if (t == null) {
+                        downloaded.increment();
+                        bytes.add(data.length);
+                    } else if (!handle.isCancelled()) {
+                        failed.increment();
+                        if (logger.isLoggable(Level.FINE)) {
+                            logger.fine("Error seeding tile " + zoom + "/" + i + "/" + j + ": " + t);
+                        }
+                    }
+                    permits.release();
+                });
+                if (result.isDone()) {
+                    handle.cancel();
+                }
+            }
+
+            // takes permits, reporting the progress meanwhile, and returns false if the seeding stopped
+            private boolean acquire(int count) {
+                try {
+                    while (!permits.tryAcquire(count, Math.max(0, nextReport - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                        if (result.isDone()) {
+                            return false;
+                        }
+                        reportIfDue();
+                    }
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+
+            private void reportIfDue() {
+                long now = System.nanoTime();
+                if (now - nextReport >= 0) {
+                    nextReport = now + PROGRESS_INTERVAL;
+                    report(snapshot(now));
+                }
+            }
+
+            private void report(TileSeedProgress progress) {
+                if (listener == null) {
+                    return;
+                }
+                try {
+                    listener.accept(progress);
+                } catch (RuntimeException e) {
+                    logger.log(Level.WARNING, "Error reporting the progress of seeding " + region, e);
+                }
+            }
+
+            private TileSeedProgress snapshot(long now) {
+                return new TileSeedProgress(region.getTileCount(), downloaded.sum(), skipped, failed.sum(),
+                        bytes.sum(), now - start);
+            }
+        }
+
+        private static final class SeedHandle implements TileDownloadScheduler.Handle {
+
+            private volatile boolean cancelled;
+            private Runnable onCancel;
+
+            @Override
+            public boolean isCancelled() {
+                return cancelled;
+            }
+
+            @Override
+            public void setOnCancel(Runnable hook) {
+                synchronized (this) {
+                    if (!cancelled) {
+                        onCancel = hook;
+                        return;
+                    }
+                }
+                if (hook != null) {
+                    hook.run();
+                }
+            }
+
+            void cancel() {
+                Runnable hook;
+                synchronized (this) {
+                    cancelled = true;
+                    hook = onCancel;
+                    onCancel = null;
+                }
+                if (hook != null) {
+                    hook.run();
                 }
             }
         }
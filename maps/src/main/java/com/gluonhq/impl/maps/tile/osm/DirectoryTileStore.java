@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gluonhq.impl.maps.tile.osm;
+
+import com.gluonhq.impl.maps.TileIndex;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A tile store that keeps every tile in its own file, laid out as
+ * <code>zoom/i/j.png</code>, with its metadata in <code>zoom/i/j.meta</code>. Its index is built once by listing the cache
+ * directory with directory streams, and then kept up to date as tiles are
+ * written.
+ */
+class DirectoryTileStore implements TileStore {
+
+    private static final Logger logger = Logger.getLogger(DirectoryTileStore.class.getName());
+
+    private static final String SUFFIX = ".png";
+    private static final String META_SUFFIX = ".meta";
+    private static final String PART_SUFFIX = ".part";
+
+    private final Path root;
+    private final TileIndex<FileInfo> tiles = new TileIndex<>();
+    private volatile boolean ready;
+
+    private static final class FileInfo {
+        final long size;
+        final long modified;
+
+        FileInfo(long size, long modified) {
+            this.size = size;
+            this.modified = modified;
+        }
+    }
+
+    DirectoryTileStore(Path root) {
+        this.root = root;
+    }
+
+    /**
+     * Lists the cache directory and adds every tile found to the index.
+     * Entries that don't follow the layout of the cache are ignored.
+     */
+    @Override
+    public void open() {
+        long start = System.nanoTime();
+        int count = 0;
+        try (DirectoryStream<Path> zooms = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path zoomDir : zooms) {
+                int zoom = parseZoom(zoomDir.getFileName().toString());
+                if (zoom < 0) {
+                    continue;
+                }
+                try (DirectoryStream<Path> columns = Files.newDirectoryStream(zoomDir, Files::isDirectory)) {
+                    for (Path column : columns) {
+                        long i = parseLong(column.getFileName().toString());
+                        if (i < 0) {
+                            continue;
+                        }
+                        try (DirectoryStream<Path> files = Files.newDirectoryStream(column, "*" + SUFFIX)) {
+                            for (Path file : files) {
+                                String name = file.getFileName().toString();
+                                long j = parseLong(name.substring(0, name.length() - SUFFIX.length()));
+                                if (j >= 0) {
+                                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                                    FileInfo info = new FileInfo(attributes.size(), attributes.lastModifiedTime().toMillis());
+                                    synchronized (this) {
+                                        tiles.put(TileIndex.key(zoom, i, j), info);
+                                    }
+                                    count++;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Error indexing the tile cache at " + root, e);
+        }
+        ready = true;
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("Indexed " + count + " cached tiles in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public synchronized boolean contains(int zoom, long i, long j) {
+        return tiles.get(TileIndex.key(zoom, i, j)) != null;
+    }
+
+    @Override
+    public InputStream read(int zoom, long i, long j) throws IOException {
+        try {
+            return Files.newInputStream(getPath(zoom, i, j));
+        } catch (NoSuchFileException e) {
+            synchronized (this) {
+                tiles.remove(TileIndex.key(zoom, i, j));
+            }
+            return null;
+        }
+    }
+
+    @Override
+    public void write(int zoom, long i, long j, byte[] data, TileMetadata metadata) throws IOException {
+        Path file = getPath(zoom, i, j);
+        Files.createDirectories(file.getParent());
+        // the metadata goes first, so a tile never has the validators of an older image
+        if (metadata != null) {
+            writeAtomically(getMetadataPath(file, j), metadata.encode());
+        } else {
+            Files.deleteIfExists(getMetadataPath(file, j));
+        }
+        writeAtomically(file, data);
+        FileInfo info = new FileInfo(data.length, System.currentTimeMillis());
+        synchronized (this) {
+            tiles.put(TileIndex.key(zoom, i, j), info);
+        }
+    }
+
+    @Override
+    public TileMetadata readMetadata(int zoom, long i, long j) throws IOException {
+        try {
+            return TileMetadata.decode(Files.readAllBytes(getMetadataPath(getPath(zoom, i, j), j)));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void writeMetadata(int zoom, long i, long j, TileMetadata metadata) throws IOException {
+        if (contains(zoom, i, j)) {
+            writeAtomically(getMetadataPath(getPath(zoom, i, j), j), metadata.encode());
+        }
+    }
+
+    @Override
+    public void remove(int zoom, long i, long j) throws IOException {
+        synchronized (this) {
+            tiles.remove(TileIndex.key(zoom, i, j));
+        }
+        Path file = getPath(zoom, i, j);
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(getMetadataPath(file, j));
+    }
+
+    // writes to a temporary file first, so an interrupted write never leaves a partial file in the cache
+    private static void writeAtomically(Path file, byte[] data) throws IOException {
+        Path partial = file.resolveSibling(file.getFileName() + PART_SUFFIX);
+        try {
+            Files.write(partial, data);
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    private static Path getMetadataPath(Path file, long j) {
+        return file.resolveSibling(j + META_SUFFIX);
+    }
+
+    @Override
+    public synchronized int size() {
+        return tiles.size();
+    }
+
+    @Override
+    public synchronized void forEach(EntryVisitor visitor) {
+        tiles.forEach((key, info) -> visitor.visit(key, info.size, info.modified));
+    }
+
+    Path getPath(int zoom, long i, long j) {
+        return root.resolve(Integer.toString(zoom)).resolve(Long.toString(i)).resolve(j + SUFFIX);
+    }
+
+    private static int parseZoom(String s) {
+        long value = parseLong(s);
+        return value > 28 ? -1 : (int) value;
+    }
+
+    // returns -1 if the string is not a non-negative number
+    private static long parseLong(String s) {
+        if (s.isEmpty() || s.length() > 18) {
+            return -1;
+        }
+        long value = 0;
+        for (int k = 0; k < s.length(); k++) {
+            char c = s.charAt(k);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
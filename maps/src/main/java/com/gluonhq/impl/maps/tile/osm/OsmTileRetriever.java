@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Gluon
+ * Copyright (c) 2018, 2026, Gluon
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -31,10 +31,24 @@ import com.gluonhq.maps.tile.TileRetriever;
 import javafx.scene.image.Image;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
 
 public class OsmTileRetriever implements TileRetriever {
 
-    private static final String host = "https://tile.openstreetmap.org/";
+    /**
+     * The system property that sets the URL of the tile server, for instance
+     * a mirror or a local server. The URL ends with a slash.
+     */
+    static final String HOST_PROPERTY = "com.gluonhq.maps.osm.host";
+    private static final String host = System.getProperty(HOST_PROPERTY, "https://tile.openstreetmap.org/");
+
+    /**
+     * The system property that sets the highest zoom level the tile server
+     * has tiles for, 19 by default.
+     */
+    static final String MAX_ZOOM_PROPERTY = "com.gluonhq.maps.osm.maxZoom";
+    private static final int DEFAULT_MAX_ZOOM = 19;
+    private static final int maxZoom = maxZoomFromProperty();
     static final String httpAgent;
 
     static {
@@ -46,6 +60,22 @@ public class OsmTileRetriever implements TileRetriever {
         System.setProperty("http.agent", httpAgent);
     }
 
+    private static int maxZoomFromProperty() {
+        String value = System.getProperty(MAX_ZOOM_PROPERTY);
+        if (value != null) {
+            try {
+                int zoom = Integer.parseInt(value.trim());
+                if (zoom >= 0) {
+                    return zoom;
+                }
+            } catch (NumberFormatException e) {
+                // fall through to the default
+            }
+            Logger.getLogger(OsmTileRetriever.class.getName()).warning("Invalid value for " + MAX_ZOOM_PROPERTY + ": " + value);
+        }
+        return DEFAULT_MAX_ZOOM;
+    }
+
     static String buildImageUrlString(int zoom, long i, long j) {
         return host + zoom + "/" + i + "/" + j + ".png";
     }
@@ -56,4 +86,9 @@ public class OsmTileRetriever implements TileRetriever {
         return CompletableFuture.completedFuture(new Image(urlString, true));
     }
 
+    @Override
+    public int getMaxZoom() {
+        return maxZoom;
+    }
+
 }
@@ -0,0 +1,719 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gluonhq.impl.maps.tile.osm;
+
+import com.gluonhq.impl.maps.TileIndex;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * A tile store that keeps all tiles in a single, append-only data file,
+ * <code>tiles-&lt;generation&gt;.pack</code>, which is read through a memory
+ * mapping. As the file grows, it is only mapped again once it has doubled in
+ * size, the records appended in the meantime are read from the file.
+ * <p>
+ * Every tile is appended as a record with a header that holds its key, its
+ * length and a checksum, followed by the metadata and the encoded image of
+ * the tile. Replacing or removing a tile appends a new record
+ * (a removal has no data), so a crash can at most lose the records that were
+ * being appended: on open, records with a bad header or checksum at the end
+ * of the file are truncated.
+ * The offsets of the live records are saved from time to time in a compact
+ * index file, <code>tiles.idx</code>, once the records it covers are synced
+ * to disk, so opening the store only has to scan
+ * the records that were appended after the index was saved.
+ * <p>
+ * When most of the data file is taken by replaced and removed records, the
+ * live records are copied to the data file of the next generation, and the
+ * store switches to it. The file of the previous generation is deleted once
+ * it is no longer mapped, at the latest when the store is opened again: a
+ * mapped file can't be replaced, deleted or truncated on Windows, so the
+ * data file is never truncated after it was mapped either. The generation
+ * is stored in the header of the data file and in the index file as well,
+ * so an index that doesn't belong to the data file is never used.
+ * <p>
+ * When this store is opened on a cache directory that has tiles in the
+ * layout of {@link DirectoryTileStore}, those tiles are moved into the
+ * data file.
+ */
+class PackedTileStore implements TileStore {
+
+    private static final Logger logger = Logger.getLogger(PackedTileStore.class.getName());
+
+    private static final String DATA_PREFIX = "tiles-";
+    private static final String DATA_SUFFIX = ".pack";
+    static final String INDEX_FILE = "tiles.idx";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    static final int DATA_MAGIC = 0x474d5044;   // GMPD
+    private static final int INDEX_MAGIC = 0x474d5049;  // GMPI
+    static final int RECORD_MAGIC = 0x474d5052; // GMPR
+    static final int VERSION = 2;
+
+    // magic, version, generation
+    static final int DATA_HEADER = 16;
+    // magic, zoom, i, j, length, metadata length, checksum
+    static final int RECORD_HEADER = 36;
+    private static final int META_LENGTH_POSITION = 28;
+    // magic, version, generation, covered length, count
+    private static final int INDEX_HEADER = 28;
+    // key, offset, length, metadata length
+    private static final int INDEX_ENTRY = 24;
+
+    // the index is saved after this number of records were appended
+    private static final int SAVE_INTERVAL = 256;
+    // compact when the dead records take more than this number of bytes, and more than the live ones
+    private static final long COMPACT_THRESHOLD = 8 * 1024 * 1024;
+
+    private final Path root;
+    private final Path indexFile;
+    private Path dataFile;
+
+    private final TileIndex<Slot> slots = new TileIndex<>();
+    private FileChannel channel;
+    private MappedByteBuffer map;
+    private long generation;
+    private long end;
+    private long liveBytes;
+    private int unsaved;
+    private volatile boolean ready;
+
+    /**
+     * The location of the payload of a record in the data file. The payload
+     * is the metadata, followed by the encoded image.
+     */
+    private static final class Slot {
+        final long offset;
+        final int length;
+        final int metaLength;
+
+        Slot(long offset, int length, int metaLength) {
+            this.offset = offset;
+            this.length = length;
+            this.metaLength = metaLength;
+        }
+
+        long recordSize() {
+            return RECORD_HEADER + length;
+        }
+    }
+
+    PackedTileStore(Path root) {
+        this.root = root;
+        this.dataFile = dataFile(1);
+        this.indexFile = root.resolve(INDEX_FILE);
+    }
+
+    @Override
+    public void open() {
+        long start = System.nanoTime();
+        try {
+            synchronized (this) {
+                openData();
+            }
+            migrate();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Error opening the tile store at " + dataFile, e);
+            closeQuietly();
+        }
+        ready = true;
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("Opened " + size() + " packed tiles in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public synchronized boolean contains(int zoom, long i, long j) {
+        return slots.get(TileIndex.key(zoom, i, j)) != null;
+    }
+
+    @Override
+    public synchronized InputStream read(int zoom, long i, long j) throws IOException {
+        Slot slot = slots.get(TileIndex.key(zoom, i, j));
+        byte[] payload = readPayload(zoom, i, j, slot);
+        return payload == null ? null : new ByteArrayInputStream(payload, slot.metaLength, slot.length - slot.metaLength);
+    }
+
+    @Override
+    public synchronized TileMetadata readMetadata(int zoom, long i, long j) throws IOException {
+        Slot slot = slots.get(TileIndex.key(zoom, i, j));
+        byte[] payload = readPayload(zoom, i, j, slot);
+        if (payload == null || slot.metaLength == 0) {
+            return null;
+        }
+        return TileMetadata.decode(Arrays.copyOf(payload, slot.metaLength));
+    }
+
+    @Override
+    public synchronized void writeMetadata(int zoom, long i, long j, TileMetadata metadata) throws IOException {
+        Slot slot = slots.get(TileIndex.key(zoom, i, j));
+        byte[] payload = readPayload(zoom, i, j, slot);
+        if (payload != null) {
+            // records are immutable, so the image is appended again with the new metadata
+            append(zoom, i, j, Arrays.copyOfRange(payload, slot.metaLength, slot.length), metadata);
+        }
+    }
+
+    // reads and verifies the payload of a record, a damaged record is dropped
+    private byte[] readPayload(int zoom, long i, long j, Slot slot) throws IOException {
+        if (slot == null || channel == null) {
+            return null;
+        }
+        ByteBuffer record = readRecord(slot);
+        if (record.getInt() != RECORD_MAGIC || record.getInt() != zoom || record.getLong() != i ||
+                record.getLong() != j || record.getInt() != slot.length || record.getInt() != slot.metaLength) {
+            logger.warning("Damaged record for tile " + zoom + "/" + i + "/" + j + " in " + dataFile);
+            drop(TileIndex.key(zoom, i, j), slot);
+            return null;
+        }
+        int checksum = record.getInt();
+        byte[] payload = new byte[slot.length];
+        record.get(payload);
+        if (checksum(payload) != checksum) {
+            logger.warning("Bad checksum for tile " + zoom + "/" + i + "/" + j + " in " + dataFile);
+            drop(TileIndex.key(zoom, i, j), slot);
+            return null;
+        }
+        return payload;
+    }
+
+    /**
+     * Returns the header and the payload of a record. The data file is only
+     * mapped again once it has doubled in size, a record that was appended
+     * since it was last mapped is read from the file.
+     */
+    private ByteBuffer readRecord(Slot slot) throws IOException {
+        long limit = slot.offset + slot.length;
+        if (limit > map.capacity() && channel.size() >= 2L * map.capacity()) {
+            remap();
+        }
+        if (limit <= map.capacity()) {
+            ByteBuffer record = map.duplicate();
+            record.position((int) slot.offset - RECORD_HEADER);
+            return record;
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + slot.length);
+        if (!readFully(channel, record, slot.offset - RECORD_HEADER)) {
+            throw new IOException("Unexpected end of " + dataFile);
+        }
+        record.flip();
+        return record;
+    }
+
+    @Override
+    public synchronized void write(int zoom, long i, long j, byte[] data, TileMetadata metadata) throws IOException {
+        if (channel == null) {
+            throw new IOException("The tile store at " + dataFile + " is not open");
+        }
+        if (data.length == 0) {
+            // a record without payload is a removal
+            throw new IOException("Can't store an empty tile " + zoom + "/" + i + "/" + j);
+        }
+        append(zoom, i, j, data, metadata);
+    }
+
+    @Override
+    public synchronized void remove(int zoom, long i, long j) throws IOException {
+        if (channel == null || slots.get(TileIndex.key(zoom, i, j)) == null) {
+            return;
+        }
+        append(zoom, i, j, null, null);
+    }
+
+    @Override
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    @Override
+    public synchronized void forEach(EntryVisitor visitor) {
+        // later records are at higher offsets
+        slots.forEach((key, slot) -> visitor.visit(key, slot.recordSize(), slot.offset));
+    }
+
+    // appends a record, a null image appends a removal
+    private void append(int zoom, long i, long j, byte[] data, TileMetadata metadata) throws IOException {
+        ByteBuffer record = encodeRecord(zoom, i, j, data, metadata);
+        int length = record.remaining() - RECORD_HEADER;
+        int metaLength = record.getInt(META_LENGTH_POSITION);
+        if (end + record.remaining() > Integer.MAX_VALUE) {
+            // the data file is mapped with a single buffer
+            throw new IOException("The tile store at " + dataFile + " is full");
+        }
+        long position = end;
+        while (record.hasRemaining()) {
+            position += channel.write(record, position);
+        }
+        Slot slot = data == null ? null : new Slot(end + RECORD_HEADER, length, metaLength);
+        end = position;
+        apply(TileIndex.key(zoom, i, j), slot);
+        if (++unsaved >= SAVE_INTERVAL) {
+            saveIndex();
+        }
+        long deadBytes = end - DATA_HEADER - liveBytes;
+        if (deadBytes > COMPACT_THRESHOLD && deadBytes > liveBytes) {
+            try {
+                compact();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Error compacting the tile store at " + dataFile, e);
+            }
+        }
+    }
+
+    /**
+     * Encodes a record, ready to be written. A null image encodes a removal.
+     *
+     * @param zoom the zoom level of the tile
+     * @param i the horizontal position of the tile
+     * @param j the vertical position of the tile
+     * @param data the encoded image, or null
+     * @param metadata the metadata of the tile, or null
+     * @return the header and the payload of the record
+     */
+    static ByteBuffer encodeRecord(int zoom, long i, long j, byte[] data, TileMetadata metadata) {
+        byte[] meta = data == null || metadata == null ? new byte[0] : metadata.encode();
+        byte[] payload = data == null ? new byte[0] : new byte[meta.length + data.length];
+        if (data != null) {
+            System.arraycopy(meta, 0, payload, 0, meta.length);
+            System.arraycopy(data, 0, payload, meta.length, data.length);
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + payload.length);
+        record.putInt(RECORD_MAGIC).putInt(zoom).putLong(i).putLong(j).putInt(payload.length).putInt(meta.length)
+                .putInt(payload.length == 0 ? 0 : checksum(payload));
+        record.put(payload);
+        record.flip();
+        return record;
+    }
+
+    // updates the index for a record, a null slot removes the tile
+    private void apply(long key, Slot slot) {
+        Slot old = slot == null ? slots.remove(key) : slots.put(key, slot);
+        if (old != null) {
+            liveBytes -= old.recordSize();
+        }
+        if (slot != null) {
+            liveBytes += slot.recordSize();
+        }
+    }
+
+    private void drop(long key, Slot slot) {
+        slots.remove(key);
+        liveBytes -= slot.recordSize();
+    }
+
+    private void openData() throws IOException {
+        Files.createDirectories(root);
+        // left behind by an index save that didn't complete
+        Files.deleteIfExists(root.resolve(INDEX_FILE + TEMP_SUFFIX));
+
+        generation = Math.max(1, latestGeneration());
+        dataFile = dataFile(generation);
+        deleteStaleFiles();
+        channel = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size < DATA_HEADER || !readDataHeader()) {
+            if (size > 0) {
+                logger.warning("Discarding tile store with a bad header at " + dataFile);
+            }
+            channel.truncate(0);
+            writeDataHeader(channel, generation);
+            size = DATA_HEADER;
+        }
+        long scanFrom = loadIndex(size);
+        end = scan(scanFrom, size);
+        if (end < size) {
+            logger.warning("Truncating " + (size - end) + " bytes of incomplete records from " + dataFile);
+            // before the file is mapped
+            channel.truncate(end);
+        }
+        remap();
+        if (end > scanFrom) {
+            saveIndex();
+        }
+    }
+
+    private boolean readDataHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(DATA_HEADER);
+        channel.read(header, 0);
+        header.flip();
+        return header.getInt() == DATA_MAGIC && header.getInt() == VERSION && header.getLong() == generation;
+    }
+
+    private Path dataFile(long generation) {
+        return root.resolve(DATA_PREFIX + generation + DATA_SUFFIX);
+    }
+
+    // returns the generation of a data file, or 0 if the file is not one
+    private static long generationOf(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(DATA_PREFIX) || !name.endsWith(DATA_SUFFIX)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(name.substring(DATA_PREFIX.length(), name.length() - DATA_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private long latestGeneration() throws IOException {
+        long latest = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root, DATA_PREFIX + "*" + DATA_SUFFIX)) {
+            for (Path file : files) {
+                latest = Math.max(latest, generationOf(file));
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Deletes the data files of the previous generations, and those left
+     * behind by a compaction that didn't complete. A file that is still
+     * mapped can't be deleted on Windows, it is deleted on a later try.
+     */
+    private void deleteStaleFiles() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root, DATA_PREFIX + "*")) {
+            for (Path file : files) {
+                long fileGeneration = generationOf(file);
+                if (file.toString().endsWith(DATA_SUFFIX + TEMP_SUFFIX) ||
+                        (fileGeneration > 0 && fileGeneration < generation)) {
+                    try {
+                        Files.delete(file);
+                    } catch (IOException e) {
+                        logger.log(Level.FINE, "Error deleting " + file + ", retrying later", e);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Error cleaning up " + root, e);
+        }
+    }
+
+    static void writeDataHeader(FileChannel channel, long generation) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(DATA_HEADER);
+        header.putInt(DATA_MAGIC).putInt(VERSION).putLong(generation);
+        header.flip();
+        channel.write(header, 0);
+    }
+
+    // loads the saved index, and returns the position from where records still have to be scanned
+    private long loadIndex(long size) {
+        slots.clear();
+        liveBytes = 0;
+        if (!Files.exists(indexFile)) {
+            return DATA_HEADER;
+        }
+        try (FileChannel in = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            // read, not mapped, as a mapped index file couldn't be replaced on Windows
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(in.size(), Integer.MAX_VALUE));
+            if (!readFully(in, buffer, 0)) {
+                return DATA_HEADER;
+            }
+            buffer.flip();
+            if (buffer.remaining() < INDEX_HEADER || buffer.getInt() != INDEX_MAGIC || buffer.getInt() != VERSION ||
+                    buffer.getLong() != generation) {
+                return DATA_HEADER;
+            }
+            long covered = buffer.getLong();
+            int count = buffer.getInt();
+            if (covered > size || buffer.remaining() != (long) count * INDEX_ENTRY) {
+                return DATA_HEADER;
+            }
+            for (int k = 0; k < count; k++) {
+                long key = buffer.getLong();
+                long offset = buffer.getLong();
+                int length = buffer.getInt();
+                int metaLength = buffer.getInt();
+                if (offset < DATA_HEADER + RECORD_HEADER || length <= 0 || metaLength < 0 || metaLength > length ||
+                        offset + length > covered) {
+                    slots.clear();
+                    liveBytes = 0;
+                    return DATA_HEADER;
+                }
+                apply(key, new Slot(offset, length, metaLength));
+            }
+            return covered;
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Error reading the tile store index " + indexFile, e);
+            slots.clear();
+            liveBytes = 0;
+            return DATA_HEADER;
+        }
+    }
+
+    // applies the records from the given position, and returns the end of the last valid record
+    // the records are read, not mapped, so an incomplete tail can still be truncated on Windows
+    private long scan(long position, long size) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+        ByteBuffer payload = ByteBuffer.allocate(0);
+        CRC32 crc = new CRC32();
+        while (position + RECORD_HEADER <= size) {
+            header.clear();
+            if (!readFully(channel, header, position)) {
+                break;
+            }
+            header.flip();
+            if (header.getInt() != RECORD_MAGIC) {
+                break;
+            }
+            int zoom = header.getInt();
+            long i = header.getLong();
+            long j = header.getLong();
+            int length = header.getInt();
+            int metaLength = header.getInt();
+            int checksum = header.getInt();
+            if (zoom < 0 || zoom > 28 || length < 0 || metaLength < 0 || metaLength > length ||
+                    position + RECORD_HEADER + length > size) {
+                break;
+            }
+            if (length > 0) {
+                if (payload.capacity() < length) {
+                    payload = ByteBuffer.allocate(Math.max(length, payload.capacity() * 2));
+                }
+                payload.clear().limit(length);
+                if (!readFully(channel, payload, position + RECORD_HEADER)) {
+                    break;
+                }
+                payload.flip();
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+            }
+            apply(TileIndex.key(zoom, i, j), length == 0 ? null : new Slot(position + RECORD_HEADER, length, metaLength));
+            position += RECORD_HEADER + length;
+        }
+        return position;
+    }
+
+    // returns false if the end of the file is reached first
+    private static boolean readFully(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = in.read(buffer, position);
+            if (read < 0) {
+                return false;
+            }
+            position += read;
+        }
+        return true;
+    }
+
+    private void saveIndex() throws IOException {
+        // the records the index covers must be on disk before the index is
+        channel.force(false);
+        int count = slots.size();
+        ByteBuffer buffer = ByteBuffer.allocate(INDEX_HEADER + count * INDEX_ENTRY);
+        buffer.putInt(INDEX_MAGIC).putInt(VERSION).putLong(generation).putLong(end).putInt(count);
+        slots.forEach((key, slot) -> buffer.putLong(key).putLong(slot.offset).putInt(slot.length).putInt(slot.metaLength));
+        buffer.flip();
+        Path temp = root.resolve(INDEX_FILE + TEMP_SUFFIX);
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+        Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        unsaved = 0;
+    }
+
+    /**
+     * Copies the live records to the data file of the next generation, and
+     * switches to it. The new file is fully written and synced before it gets
+     * its name, so a crash leaves the old data file as the latest complete one.
+     * The old file is not replaced but deleted, as it can't be replaced while
+     * it is mapped on Windows.
+     */
+    private void compact() throws IOException {
+        long start = System.nanoTime();
+        remap();
+        long newGeneration = generation + 1;
+        Path newFile = dataFile(newGeneration);
+        Path temp = root.resolve(newFile.getFileName() + TEMP_SUFFIX);
+        TileIndex<Slot> compacted = new TileIndex<>(slots.size());
+        long position;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeDataHeader(out, newGeneration);
+            long[] next = {DATA_HEADER};
+            List<IOException> errors = new ArrayList<>(1);
+            slots.forEach((key, slot) -> {
+                if (!errors.isEmpty()) {
+                    return;
+                }
+                ByteBuffer record = map.duplicate();
+                record.limit((int) (slot.offset + slot.length)).position((int) (slot.offset - RECORD_HEADER));
+                try {
+                    long p = next[0];
+                    while (record.hasRemaining()) {
+                        p += out.write(record, p);
+                    }
+                    compacted.put(key, new Slot(next[0] + RECORD_HEADER, slot.length, slot.metaLength));
+                    next[0] = p;
+                } catch (IOException e) {
+                    errors.add(e);
+                }
+            });
+            if (!errors.isEmpty()) {
+                throw errors.get(0);
+            }
+            out.force(true);
+            position = next[0];
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        FileChannel newChannel;
+        try {
+            Files.move(temp, newFile, StandardCopyOption.ATOMIC_MOVE);
+            newChannel = FileChannel.open(newFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            // keep using the old data file, which stays the latest one
+            Files.deleteIfExists(temp);
+            Files.deleteIfExists(newFile);
+            throw e;
+        }
+        channel.close();
+        channel = newChannel;
+        dataFile = newFile;
+        long reclaimed = end - position;
+        generation = newGeneration;
+        end = position;
+        slots.clear();
+        liveBytes = 0;
+        compacted.forEach(this::apply);
+        remap();
+        saveIndex();
+        deleteStaleFiles();
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("Compacted " + dataFile + ", reclaimed " + reclaimed + " bytes in " +
+                    (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+    }
+
+    /**
+     * Moves the tiles of a cache directory in the layout of
+     * {@link DirectoryTileStore} into the data file.
+     */
+    private void migrate() throws IOException {
+        DirectoryTileStore directory = new DirectoryTileStore(root);
+        directory.open();
+        if (directory.size() == 0) {
+            return;
+        }
+        logger.info("Moving " + directory.size() + " cached tiles into " + dataFile);
+        List<Long> keys = new ArrayList<>(directory.size());
+        directory.forEach((key, size, stamp) -> keys.add(key));
+        for (long key : keys) {
+            int zoom = TileIndex.zoom(key);
+            long i = TileIndex.i(key);
+            long j = TileIndex.j(key);
+            try (InputStream in = directory.read(zoom, i, j)) {
+                byte[] data = in == null ? null : in.readAllBytes();
+                if (data != null && data.length > 0) {
+                    write(zoom, i, j, data, directory.readMetadata(zoom, i, j));
+                }
+            }
+            directory.remove(zoom, i, j);
+        }
+        synchronized (this) {
+            saveIndex();
+        }
+        deleteEmptyDirectories();
+    }
+
+    private void deleteEmptyDirectories() {
+        try (DirectoryStream<Path> zooms = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path zoom : zooms) {
+                try (DirectoryStream<Path> columns = Files.newDirectoryStream(zoom, Files::isDirectory)) {
+                    for (Path column : columns) {
+                        deleteIfEmpty(column);
+                    }
+                }
+                deleteIfEmpty(zoom);
+            }
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Error cleaning up " + root, e);
+        }
+    }
+
+    private static void deleteIfEmpty(Path directory) {
+        try {
+            Files.delete(directory);
+        } catch (IOException e) {
+            // not empty
+        }
+    }
+
+    private void remap() throws IOException {
+        map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    private synchronized void closeQuietly() {
+        slots.clear();
+        liveBytes = 0;
+        map = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            channel = null;
+        }
+    }
+
+    static int checksum(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+}
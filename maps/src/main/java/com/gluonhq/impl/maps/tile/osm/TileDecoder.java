@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gluonhq.impl.maps.tile.osm;
+
+import com.gluonhq.impl.maps.Metrics;
+import com.gluonhq.impl.maps.jfr.TileEvents;
+import com.gluonhq.maps.tile.TileMetricsRecorder;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.image.WritablePixelFormat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Decodes encoded tiles on a bounded pool of worker threads, so neither the
+ * FX thread nor the download threads decode images, and the number of
+ * concurrent decodes is under control.
+ * <p>
+ * By default, a decoded tile is kept in the format of the decoder. A tile
+ * can also be converted to a {@link WritableImage} backed by a
+ * {@link PixelBuffer} in the premultiplied ARGB format, which is the format
+ * of the textures the tiles end up in, so the conversion happens on the
+ * worker thread rather than when the tile is first rendered. The decoded
+ * image and its copy then exist at the same time, so that costs twice the
+ * memory while decoding, and a copy of every pixel.
+ */
+final class TileDecoder {
+
+    private static final Logger logger = Logger.getLogger(TileDecoder.class.getName());
+
+    /**
+     * The system property that sets the number of decode threads
+     */
+    static final String THREADS_PROPERTY = "com.gluonhq.maps.decode.threads";
+    /**
+     * The system property that sets the pixel format of the decoded tiles:
+     * <code>native</code> (the default), which keeps the format of the
+     * decoded image, or <code>argb_pre</code>.
+     */
+    static final String FORMAT_PROPERTY = "com.gluonhq.maps.decode.format";
+
+    enum Format {
+        ARGB_PRE, NATIVE
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final Format format;
+
+    TileDecoder(int threads, Format format, ThreadFactory threadFactory) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+        this.format = format;
+    }
+
+    static int threadsFromProperty() {
+        int defaultThreads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+        String value = System.getProperty(THREADS_PROPERTY);
+        if (value != null) {
+            try {
+                int threads = Integer.parseInt(value.trim());
+                if (threads > 0) {
+                    return threads;
+                }
+            } catch (NumberFormatException e) {
+                // fall through to the default
+            }
+            logger.warning("Invalid value for " + THREADS_PROPERTY + ": " + value);
+        }
+        return defaultThreads;
+    }
+
+    static Format formatFromProperty() {
+        String value = System.getProperty(FORMAT_PROPERTY);
+        if (value != null) {
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                logger.warning("Invalid value for " + FORMAT_PROPERTY + ": " + value);
+            }
+        }
+        return Format.NATIVE;
+    }
+
+    /**
+     * Runs a task on the decode threads, for instance one that reads a tile
+     * and then decodes it with {@link #decodeNow(int, long, long, byte[])}.
+     *
+     * @param task the task
+     */
+    void execute(Runnable task) {
+        TileMetricsRecorder metrics = Metrics.recorder();
+        if (metrics == null) {
+            executor.execute(task);
+            return;
+        }
+        executor.execute(() -> {
+            recordQueue();
+            task.run();
+        });
+        recordQueue();
+    }
+
+    private void recordQueue() {
+        TileMetricsRecorder metrics = Metrics.recorder();
+        if (metrics != null) {
+            metrics.recordDecodeQueue(executor.getQueue().size());
+        }
+    }
+
+    /**
+     * Decodes a tile on the decode threads.
+     *
+     * @param zoom the zoom level of the tile
+     * @param i the horizontal position of the tile
+     * @param j the vertical position of the tile
+     * @param data the encoded tile
+     * @return a future with the decoded image
+     */
+    CompletableFuture<Image> decode(int zoom, long i, long j, byte[] data) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return decodeNow(zoom, i, j, data);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, this::execute);
+    }
+
+    /**
+     * Decodes a tile on the calling thread.
+     *
+     * @param zoom the zoom level of the tile
+     * @param i the horizontal position of the tile
+     * @param j the vertical position of the tile
+     * @param data the encoded tile
+     * @return the decoded image
+     * @throws IOException if the data is not a valid image
+     */
+    Image decodeNow(int zoom, long i, long j, byte[] data) throws IOException {
+        TileMetricsRecorder metrics = Metrics.recorder();
+        TileEvents.Span span = TileEvents.begin(TileEvents.Phase.DECODE);
+        long start = metrics != null ? System.nanoTime() : 0;
+        Image image = new Image(new ByteArrayInputStream(data));
+        if (image.isError()) {
+            if (span != null) {
+                span.tile(zoom, i, j).bytes(data.length).failed(true).commit();
+            }
+            throw new IOException("Error decoding tile", image.getException());
+        }
+        Image result = format == Format.ARGB_PRE ? toArgbPre(image) : image;
+        if (metrics != null) {
+            metrics.recordDecode(System.nanoTime() - start);
+        }
+        if (span != null) {
+            span.tile(zoom, i, j).bytes(data.length).commit();
+        }
+        return result;
+    }
+
+    private static Image toArgbPre(Image image) {
+        int width = (int) image.getWidth();
+        int height = (int) image.getHeight();
+        WritablePixelFormat<IntBuffer> pixelFormat = PixelFormat.getIntArgbPreInstance();
+        int[] pixels = new int[width * height];
+        image.getPixelReader().getPixels(0, 0, width, height, pixelFormat, pixels, 0, width);
+        return new WritableImage(new PixelBuffer<>(width, height, IntBuffer.wrap(pixels), pixelFormat));
+    }
+}
@@ -0,0 +1,536 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gluonhq.impl.maps.tile.osm;
+
+import com.gluonhq.impl.maps.Metrics;
+import com.gluonhq.maps.tile.TileMetricsRecorder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Starts tile downloads, with a bounded number of downloads in flight, in
+ * order of their distance to the center of the current viewport rather than
+ * in order of submission. Downloads are asynchronous: they don't hold a
+ * thread while they wait for the network.
+ * The priority of a queued download is evaluated when a download completes,
+ * so downloads are re-prioritised as soon as the viewport moves.
+ * Queued downloads that end up far away from the viewport, or more than one
+ * zoom level away from it, are dropped: their future is cancelled. Queued
+ * prefetches are only dropped for their zoom level, as they are hints for
+ * where the viewport is going, like the destination of an animation.
+ * <p>
+ * Cancelling the future of a download removes it from the queue, or, when it
+ * is already running, invokes the hook the download registered with
+ * {@link Handle#setOnCancel(Runnable)}.
+ * <p>
+ * Prefetches are downloads of tiles that are not shown yet. They are only
+ * started when no other download is queued and there is room for one more
+ * download, one at a time, and no more often than the rate set with
+ * <code>com.gluonhq.maps.prefetch.rate</code> (tiles per second). They don't
+ * count towards the maximum number of downloads in flight, so a tile that
+ * is shown never waits for a prefetch.
+ */
+class TileDownloadScheduler {
+
+    private static final Logger logger = Logger.getLogger(TileDownloadScheduler.class.getName());
+
+    /**
+     * The system property that sets the maximum number of downloads in flight
+     */
+    static final String THREADS_PROPERTY = "com.gluonhq.maps.download.threads";
+    static final int DEFAULT_THREADS = 2;
+
+    /**
+     * The system property that sets the maximum number of prefetches started
+     * per second. Zero disables prefetching.
+     */
+    static final String PREFETCH_RATE_PROPERTY = "com.gluonhq.maps.prefetch.rate";
+    static final int DEFAULT_PREFETCH_RATE = 8;
+
+    // prefetches beyond this number of queued prefetches are refused
+    private static final int MAX_QUEUED_PREFETCHES = 64;
+
+    // a zoom level difference costs as much as this number of tiles in distance
+    private static final double ZOOM_WEIGHT = 4;
+    // queued downloads further away than this number of tiles are dropped
+    private static final double DROP_DISTANCE = 16;
+
+    /**
+     * An asynchronous download, which gets a handle to check for and react to
+     * cancellation.
+     *
+     * @param <T> the type of the result
+     */
+    interface Download<T> {
+        CompletableFuture<T> start(Handle handle) throws Exception;
+    }
+
+    /**
+     * Gives a running download access to the cancellation state of its future.
+     */
+    interface Handle {
+
+        boolean isCancelled();
+
+        /**
+         * Sets a hook that is invoked when the download is cancelled while it
+         * runs, for instance to close a connection that blocks the download
+         * thread. If the download is already cancelled, the hook is invoked
+         * right away.
+         *
+         * @param hook the hook, or null to remove it
+         */
+        void setOnCancel(Runnable hook);
+    }
+
+    private final List<Task<?>> queue = new ArrayList<>();
+    private final int maxInFlight;
+    private int inFlight;
+    private boolean dispatching, redispatch;
+    private long sequence;
+
+    private final long prefetchInterval;
+    private int queuedPrefetches, prefetchesInFlight;
+    // the earliest time the next prefetch can start, and whether a dispatch is scheduled for then
+    private long nextPrefetch;
+    private boolean prefetchWakeup;
+
+    // the viewport, in tile coordinates at its zoom level
+    private int viewZoom = -1;
+    private double viewI, viewJ;
+    // the viewport at the last time the queue was checked for downloads to drop
+    private int dropZoom = -1;
+    private double dropI, dropJ;
+
+    TileDownloadScheduler(int maxInFlight) {
+        this(maxInFlight, 0);
+    }
+
+    /**
+     * @param maxInFlight the maximum number of downloads in flight
+     * @param prefetchRate the maximum number of prefetches started per
+     *                     second, or zero to refuse prefetches
+     */
+    TileDownloadScheduler(int maxInFlight, int prefetchRate) {
+        this.maxInFlight = maxInFlight;
+        this.prefetchInterval = prefetchRate > 0 ? TimeUnit.SECONDS.toNanos(1) / prefetchRate : 0;
+        this.nextPrefetch = System.nanoTime();
+    }
+
+    static int threadsFromProperty() {
+        String value = System.getProperty(THREADS_PROPERTY);
+        if (value != null) {
+            try {
+                int threads = Integer.parseInt(value.trim());
+                if (threads > 0) {
+                    return threads;
+                }
+            } catch (NumberFormatException e) {
+                // fall through to the default
+            }
+            logger.warning("Invalid value for " + THREADS_PROPERTY + ": " + value);
+        }
+        return DEFAULT_THREADS;
+    }
+
+    static int prefetchRateFromProperty() {
+        String value = System.getProperty(PREFETCH_RATE_PROPERTY);
+        if (value != null) {
+            try {
+                int rate = Integer.parseInt(value.trim());
+                if (rate >= 0) {
+                    return rate;
+                }
+            } catch (NumberFormatException e) {
+                // fall through to the default
+            }
+            logger.warning("Invalid value for " + PREFETCH_RATE_PROPERTY + ": " + value);
+        }
+        return DEFAULT_PREFETCH_RATE;
+    }
+
+    /**
+     * Queues a download for a tile.
+     *
+     * @param zoom the zoom level of the tile
+     * @param i the horizontal position of the tile
+     * @param j the vertical position of the tile
+     * @param download the download
+     * @param <T> the type of the result
+     * @return a future that completes with the result of the download, or is
+     * cancelled if the download is dropped. Cancelling it cancels the download.
+     */
+    <T> CompletableFuture<T> submit(int zoom, long i, long j, Download<T> download) {
+        return submit(new Task<>(zoom, i, j, download, false));
+    }
+
+    /**
+     * Queues a prefetch, the download of a tile that is not shown yet.
+     *
+     * @param zoom the zoom level of the tile
+     * @param i the horizontal position of the tile
+     * @param j the vertical position of the tile
+     * @param download the download
+     * @param <T> the type of the result
+     * @return a future that completes with the result of the download, or is
+     * cancelled if prefetching is disabled, too many prefetches are queued, or
+     * the prefetch is dropped
+     */
+    <T> CompletableFuture<T> prefetch(int zoom, long i, long j, Download<T> download) {
+        synchronized (this) {
+            if (prefetchInterval == 0 || queuedPrefetches >= MAX_QUEUED_PREFETCHES) {
+                CompletableFuture<T> refused = new CompletableFuture<>();
+                refused.cancel(false);
+                return refused;
+            }
+        }
+        return submit(new Task<>(zoom, i, j, download, true));
+    }
+
+    boolean isPrefetchEnabled() {
+        return prefetchInterval != 0;
+    }
+
+    /**
+     * Turns a queued prefetch into a regular download, when the tile is
+     * needed after all. Does nothing if the prefetch already started.
+     *
+     * @param future the future returned by {@link #prefetch}
+     */
+    void promote(CompletableFuture<?> future) {
+        synchronized (this) {
+            for (Task<?> task : queue) {
+                if (task.future == future) {
+                    if (task.prefetch) {
+                        task.prefetch = false;
+                        queuedPrefetches--;
+                    }
+                    break;
+                }
+            }
+        }
+        dispatch();
+    }
+
+    private <T> CompletableFuture<T> submit(Task<T> task) {
+        synchronized (this) {
+            task.sequence = sequence++;
+            queue.add(task);
+            if (task.prefetch) {
+                queuedPrefetches++;
+            }
+        }
+        task.future.whenComplete((result, t) -> {
+            if (task.future.isCancelled()) {
+                cancelled(task);
+            }
+        });
+        dispatch();
+        return task.future;
+    }
+
+    private void cancelled(Task<?> task) {
+        boolean queued;
+        synchronized (this) {
+            int index = queue.indexOf(task);
+            queued = index >= 0;
+            if (queued) {
+                removeAt(index);
+            }
+        }
+        if (queued) {
+            recordQueue();
+        } else {
+            task.cancelRunning();
+        }
+    }
+
+    /**
+     * Updates the center of the viewport. Queued downloads are prioritised by
+     * their distance to this center.
+     *
+     * @param zoom the zoom level of the tiles in the viewport
+     * @param centerI the horizontal tile coordinate of the center
+     * @param centerJ the vertical tile coordinate of the center
+     */
+    void setViewport(int zoom, double centerI, double centerJ) {
+        List<Task<?>> dropped = null;
+        synchronized (this) {
+            viewZoom = zoom;
+            viewI = centerI;
+            viewJ = centerJ;
+            // only look for downloads to drop when the viewport moved by at least a tile
+            if (zoom != dropZoom || Math.abs(centerI - dropI) >= 1 || Math.abs(centerJ - dropJ) >= 1) {
+                dropZoom = zoom;
+                dropI = centerI;
+                dropJ = centerJ;
+                for (int k = queue.size() - 1; k >= 0; k--) {
+                    Task<?> task = queue.get(k);
+                    if (Math.abs(task.zoom - zoom) > 1 || (!task.prefetch && distance(task) > DROP_DISTANCE)) {
+                        if (dropped == null) {
+                            dropped = new ArrayList<>();
+                        }
+                        dropped.add(task);
+                        removeAt(k);
+                    }
+                }
+            }
+        }
+        if (dropped != null) {
+            recordQueue();
+            if (logger.isLoggable(Level.FINE)) {
+                logger.fine("Dropped " + dropped.size() + " queued tile downloads");
+            }
+            // complete outside the lock, as dependent stages run synchronously
+            for (Task<?> task : dropped) {
+                task.future.cancel(false);
+            }
+        }
+    }
+
+    synchronized int getQueueSize() {
+        return queue.size();
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    // starts the queued downloads with the highest priority, while there is room.
+    // Only one thread dispatches at a time, and downloads that complete right
+    // away don't recurse into dispatch, they leave it to the dispatching thread.
+    private void dispatch() {
+        synchronized (this) {
+            if (dispatching) {
+                redispatch = true;
+                return;
+            }
+            dispatching = true;
+        }
+        while (true) {
+            Task<?> task;
+            synchronized (this) {
+                task = next();
+                if (task == null) {
+                    if (redispatch) {
+                        redispatch = false;
+                        continue;
+                    }
+                    dispatching = false;
+                    break;
+                }
+            }
+            Task<?> started = task;
+            task.start(() -> finished(started));
+        }
+        recordQueue();
+    }
+
+    private void recordQueue() {
+        TileMetricsRecorder metrics = Metrics.recorder();
+        if (metrics != null) {
+            int queued, running;
+            synchronized (this) {
+                queued = queue.size();
+                running = inFlight;
+            }
+            metrics.recordDownloadQueue(queued, running);
+        }
+    }
+
+    // takes the next task to start, if any, and counts it as in flight
+    private Task<?> next() {
+        boolean hasRoom = inFlight - prefetchesInFlight < maxInFlight;
+        if (queue.size() > queuedPrefetches) {
+            if (!hasRoom) {
+                return null;
+            }
+            inFlight++;
+            return take(false);
+        }
+        // only prefetches are queued: start one if the downloads leave room for it
+        if (queuedPrefetches == 0 || prefetchesInFlight > 0 || inFlight >= maxInFlight) {
+            return null;
+        }
+        long now = System.nanoTime();
+        if (now - nextPrefetch < 0) {
+            if (!prefetchWakeup) {
+                prefetchWakeup = true;
+                CompletableFuture.delayedExecutor(nextPrefetch - now, TimeUnit.NANOSECONDS).execute(() -> {
+                    synchronized (this) {
+                        prefetchWakeup = false;
+                    }
+                    dispatch();
+                });
+            }
+            return null;
+        }
+        nextPrefetch = now + prefetchInterval;
+        inFlight++;
+        prefetchesInFlight++;
+        return take(true);
+    }
+
+    private void finished(Task<?> task) {
+        synchronized (this) {
+            inFlight--;
+            if (task.prefetch) {
+                prefetchesInFlight--;
+            }
+        }
+        dispatch();
+    }
+
+    // takes the queued download or prefetch with the highest priority
+    private Task<?> take(boolean prefetch) {
+        int best = -1;
+        double bestPriority = 0;
+        for (int k = 0; k < queue.size(); k++) {
+            Task<?> task = queue.get(k);
+            if (task.prefetch != prefetch) {
+                continue;
+            }
+            double priority = priority(task);
+            if (best < 0 || priority < bestPriority ||
+                    (priority == bestPriority && task.sequence < queue.get(best).sequence)) {
+                best = k;
+                bestPriority = priority;
+            }
+        }
+        return removeAt(best);
+    }
+
+    private Task<?> removeAt(int index) {
+        // the order of the list doesn't matter, so swap with the last task
+        Task<?> task = queue.get(index);
+        Task<?> last = queue.remove(queue.size() - 1);
+        if (index < queue.size()) {
+            queue.set(index, last);
+        }
+        if (task.prefetch) {
+            queuedPrefetches--;
+        }
+        return task;
+    }
+
+    private double priority(Task<?> task) {
+        if (viewZoom < 0) {
+            // no viewport yet, first in first out
+            return 0;
+        }
+        return distance(task) + ZOOM_WEIGHT * Math.abs(task.zoom - viewZoom);
+    }
+
+    // the distance between the center of the tile and the center of the
+    // viewport, in tiles at the zoom level of the viewport
+    private double distance(Task<?> task) {
+        double scale = Math.pow(2, viewZoom - task.zoom);
+        double dx = (task.i + 0.5) * scale - viewI;
+        double dy = (task.j + 0.5) * scale - viewJ;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private static final class Task<T> implements Handle {
+        final int zoom;
+        final long i, j;
+        final Download<T> download;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        long sequence;
+        // only changed while the task is queued
+        boolean prefetch;
+        private Runnable onCancel;
+
+        Task(int zoom, long i, long j, Download<T> download, boolean prefetch) {
+            this.zoom = zoom;
+            this.i = i;
+            this.j = j;
+            this.download = download;
+            this.prefetch = prefetch;
+        }
+
+        void start(Runnable onFinished) {
+            if (future.isDone()) {
+                onFinished.run();
+                return;
+            }
+            CompletableFuture<T> result;
+            try {
+                result = download.start(this);
+            } catch (Throwable t) {
+                result = CompletableFuture.failedFuture(t);
+            }
+            result.whenComplete((value, t) -> {
+                setOnCancel(null);
+                if (t == null) {
+                    future.complete(value);
+                } else {
+                    Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+                    if (cause instanceof CancellationException || future.isCancelled()) {
+                        future.cancel(false);
+                    } else {
+                        future.completeExceptionally(cause);
+                    }
+                }
+                onFinished.run();
+            });
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return future.isCancelled();
+        }
+
+        @Override
+        public void setOnCancel(Runnable hook) {
+            synchronized (this) {
+                onCancel = hook;
+            }
+            if (hook != null && future.isCancelled()) {
+                cancelRunning();
+            }
+        }
+
+        void cancelRunning() {
+            Runnable hook;
+            synchronized (this) {
+                hook = onCancel;
+                onCancel = null;
+            }
+            if (hook != null) {
+                hook.run();
+            }
+        }
+    }
+}
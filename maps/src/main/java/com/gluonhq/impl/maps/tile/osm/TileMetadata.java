@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gluonhq.impl.maps.tile.osm;
+
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * The validators and the expiry time of a cached tile, taken from the
+ * response that returned it. A tile is fresh until its expiry time, after
+ * that it has to be revalidated with the server, using its
+ * <code>ETag</code> or <code>Last-Modified</code> validator.
+ */
+final class TileMetadata {
+
+    // the heuristic freshness of a response without an explicit expiry is
+    // a tenth of the time since it was last modified, but at most a day
+    private static final long MAX_HEURISTIC_FRESHNESS = 24 * 60 * 60 * 1000L;
+    // a larger max-age or Age is taken as this many seconds, as RFC 9111 asks
+    private static final long MAX_DELTA_SECONDS = 1L << 31;
+
+    private final String etag;
+    private final String lastModified;
+    private final long expires;
+
+    TileMetadata(String etag, String lastModified, long expires) {
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.expires = expires;
+    }
+
+    /**
+     * Creates the metadata of a response. The validators of a 304 response
+     * may be missing, so those of the revalidated metadata are kept then.
+     *
+     * @param headers the headers of the response
+     * @param now the current time, in milliseconds
+     * @param previous the metadata that was revalidated, or null
+     * @return the metadata
+     */
+    static TileMetadata of(HttpHeaders headers, long now, TileMetadata previous) {
+        String etag = headers.firstValue("ETag").orElse(previous == null ? null : previous.etag);
+        String lastModified = headers.firstValue("Last-Modified").orElse(previous == null ? null : previous.lastModified);
+        return new TileMetadata(etag, lastModified, expires(headers, lastModified, now));
+    }
+
+    // the expiry time from Cache-Control max-age, or Expires, or a heuristic,
+    // less the time the response already spent in caches on the way
+    private static long expires(HttpHeaders headers, String lastModified, long now) {
+        long lifetime = freshnessLifetime(headers, lastModified, now);
+        return lifetime <= 0 ? now : now + Math.max(lifetime - age(headers), 0);
+    }
+
+    private static long freshnessLifetime(HttpHeaders headers, String lastModified, long now) {
+        for (String value : headers.allValues("Cache-Control")) {
+            for (String directive : value.split(",")) {
+                String d = directive.trim().toLowerCase(Locale.ROOT);
+                if (d.equals("no-cache") || d.equals("no-store")) {
+                    return 0;
+                }
+                if (d.startsWith("max-age=")) {
+                    return 1000 * parseDeltaSeconds(d.substring(8).replace("\"", ""));
+                }
+            }
+        }
+        // the lifetimes from dates are relative to the Date of the response
+        long date = headers.firstValue("Date").map(TileMetadata::parseDate).filter(d -> d >= 0).orElse(now);
+        Optional<String> expires = headers.firstValue("Expires");
+        if (expires.isPresent()) {
+            // an invalid date means the response is already expired
+            return parseDate(expires.get()) - date;
+        }
+        long modified = lastModified == null ? -1 : parseDate(lastModified);
+        if (modified >= 0 && modified < date) {
+            return Math.min((date - modified) / 10, MAX_HEURISTIC_FRESHNESS);
+        }
+        return 0;
+    }
+
+    // the Age of the response, in milliseconds
+    private static long age(HttpHeaders headers) {
+        return headers.firstValue("Age").map(value -> 1000 * Math.max(parseDeltaSeconds(value), 0)).orElse(0L);
+    }
+
+    // parses a number of seconds, or returns -1 if it isn't valid
+    private static long parseDeltaSeconds(String value) {
+        String digits = value.trim();
+        if (digits.isEmpty() || !digits.chars().allMatch(c -> c >= '0' && c <= '9')) {
+            return -1;
+        }
+        // a number too large for a long is still valid
+        return digits.length() > 10 ? MAX_DELTA_SECONDS : Math.min(Long.parseLong(digits), MAX_DELTA_SECONDS);
+    }
+
+    private static long parseDate(String value) {
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    String getETag() {
+        return etag;
+    }
+
+    String getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Returns the time until which the tile can be used without revalidating
+     * it, in milliseconds since the epoch.
+     *
+     * @return the expiry time
+     */
+    long getExpires() {
+        return expires;
+    }
+
+    boolean isFresh(long now) {
+        return now < expires;
+    }
+
+    boolean hasValidators() {
+        return etag != null || lastModified != null;
+    }
+
+    /**
+     * Encodes this metadata as three lines of text, an empty line standing
+     * for a missing validator. Header values can't contain line breaks.
+     *
+     * @return the encoded metadata
+     */
+    byte[] encode() {
+        String text = (etag == null ? "" : etag) + "\n" + (lastModified == null ? "" : lastModified) + "\n" + expires;
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes metadata encoded with {@link #encode()}.
+     *
+     * @param data the encoded metadata
+     * @return the metadata, or null if the data is not valid
+     */
+    static TileMetadata decode(byte[] data) {
+        String[] lines = new String(data, StandardCharsets.UTF_8).split("\n", -1);
+        if (lines.length != 3) {
+            return null;
+        }
+        try {
+            return new TileMetadata(lines[0].isEmpty() ? null : lines[0],
+                    lines[1].isEmpty() ? null : lines[1], Long.parseLong(lines[2]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TileMetadata[etag=" + etag + ", lastModified=" + lastModified + ", expires=" + expires + "]";
+    }
+}
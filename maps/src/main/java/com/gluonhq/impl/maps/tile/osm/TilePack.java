@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.gluonhq.impl.maps.tile.osm;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads and writes tile packs: single files with the tiles of a region,
+ * that are copied to devices to fill their cache without downloading.
+ * A pack has the format of the data file of {@link PackedTileStore}, so a
+ * pack can also be made by copying the data file of a packed cache.
+ */
+final class TilePack {
+
+    // far above the size of any tile, the length of a record is checked against it before it is read
+    static final int MAX_RECORD_LENGTH = 16 << 20;
+
+    private TilePack() {
+    }
+
+    interface TileVisitor {
+        /**
+         * Visits a record of a pack.
+         *
+         * @param zoom the zoom level of the tile
+         * @param i the horizontal position of the tile
+         * @param j the vertical position of the tile
+         * @param data the encoded image, or null if the record removes the tile
+         * @param metadata the metadata of the tile, or null
+         * @throws IOException if the tile can't be processed
+         */
+        void visit(int zoom, long i, long j, byte[] data, TileMetadata metadata) throws IOException;
+    }
+
+    /**
+     * Reads the records of a pack, in the order they were written.
+     *
+     * @param pack the pack
+     * @param visitor the visitor
+     * @throws IOException if the file can't be read, or it isn't a pack, or
+     * has a damaged record. The records before that were visited.
+     */
+    static void read(Path pack, TileVisitor visitor) throws IOException {
+        long size = Files.size(pack);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(pack)))) {
+            try {
+                if (in.readInt() != PackedTileStore.DATA_MAGIC || in.readInt() != PackedTileStore.VERSION) {
+                    throw new IOException(pack + " is not a tile pack");
+                }
+                in.readLong(); // generation
+            } catch (EOFException e) {
+                throw new IOException(pack + " is not a tile pack", e);
+            }
+            long position = PackedTileStore.DATA_HEADER;
+            int magic;
+            while ((magic = readMagic(in)) != -1) {
+                int zoom = in.readInt();
+                long i = in.readLong();
+                long j = in.readLong();
+                int length = in.readInt();
+                int metaLength = in.readInt();
+                int checksum = in.readInt();
+                if (magic != PackedTileStore.RECORD_MAGIC || zoom < 0 || zoom > 28 || i < 0 || i >= 1L << zoom ||
+                        j < 0 || j >= 1L << zoom || length < 0 || length > MAX_RECORD_LENGTH ||
+                        position + PackedTileStore.RECORD_HEADER + length > size || metaLength < 0 || metaLength > length) {
+                    throw new IOException("Damaged record at " + position + " in " + pack);
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                if (length > 0 && PackedTileStore.checksum(payload) != checksum) {
+                    throw new IOException("Bad checksum at " + position + " in " + pack);
+                }
+                if (length == 0) {
+                    visitor.visit(zoom, i, j, null, null);
+                } else {
+                    TileMetadata metadata = metaLength == 0 ? null : TileMetadata.decode(Arrays.copyOf(payload, metaLength));
+                    visitor.visit(zoom, i, j, Arrays.copyOfRange(payload, metaLength, length), metadata);
+                }
+                position += PackedTileStore.RECORD_HEADER + length;
+            }
+        } catch (EOFException e) {
+            throw new IOException("Incomplete record at the end of " + pack, e);
+        }
+    }
+
+    // reads the magic of the next record, or returns -1 at the end of the pack
+    private static int readMagic(InputStream in) throws IOException {
+        int first = in.read();
+        if (first == -1) {
+            return -1;
+        }
+        byte[] rest = in.readNBytes(3);
+        if (rest.length < 3) {
+            throw new EOFException();
+        }
+        return first << 24 | (rest[0] & 0xff) << 16 | (rest[1] & 0xff) << 8 | (rest[2] & 0xff);
+    }
+
+    /**
+     * Writes a pack. The tiles are written to a temporary file, that
+     * replaces the pack when the writer is committed, so an incomplete pack
+     * is never left behind.
+     */
+    static final class Writer implements Closeable {
+
+        private final Path pack;
+        private final Path temp;
+        private final FileChannel channel;
+        private long count;
+        private boolean committed;
+
+        Writer(Path pack) throws IOException {
+            this.pack = pack;
+            this.temp = pack.resolveSibling(pack.getFileName() + ".tmp");
+            this.channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            PackedTileStore.writeDataHeader(channel, 1);
+            channel.position(PackedTileStore.DATA_HEADER);
+        }
+
+        void write(int zoom, long i, long j, byte[] data, TileMetadata metadata) throws IOException {
+            ByteBuffer record = PackedTileStore.encodeRecord(zoom, i, j, data, metadata);
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            count++;
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        void commit() throws IOException {
+            channel.force(true);
+            channel.close();
+            Files.move(temp, pack, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                channel.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+}
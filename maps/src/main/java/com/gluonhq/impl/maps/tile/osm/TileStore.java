@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gluonhq.impl.maps.tile.osm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.logging.Logger;
+
+/**
+ * A persistent store for the encoded images of the tiles downloaded by
+ * {@link CachedOsmTileRetriever}. Every store keeps an in-memory index of its
+ * tiles, so {@link #contains} never touches the file system.
+ * Implementations are thread-safe.
+ */
+interface TileStore {
+
+    /**
+     * The system property that selects the store: <code>directory</code>
+     * (the default) keeps one file per tile, <code>packed</code> keeps all
+     * tiles in a single data file.
+     */
+    String STORE_PROPERTY = "com.gluonhq.maps.cache.store";
+
+    /**
+     * Creates the store selected by {@link #STORE_PROPERTY}.
+     *
+     * @param root the directory of the cache
+     * @return a new store, that isn't open yet
+     */
+    static TileStore create(Path root) {
+        String store = System.getProperty(STORE_PROPERTY, "directory");
+        if ("packed".equals(store)) {
+            return new PackedTileStore(root);
+        }
+        if (!"directory".equals(store)) {
+            Logger.getLogger(TileStore.class.getName()).warning("Unknown tile store " + store + ", using directory");
+        }
+        return new DirectoryTileStore(root);
+    }
+
+    /**
+     * Builds the index of the store. This can be slow, so it is called once
+     * from a background thread.
+     */
+    void open();
+
+    /**
+     * Returns true once the store is open. Until then, {@link #contains}
+     * may return false for tiles that are in the store.
+     *
+     * @return true if the store is open
+     */
+    boolean isReady();
+
+    boolean contains(int zoom, long i, long j);
+
+    /**
+     * Opens a stream to read the encoded image of a tile.
+     *
+     * @param zoom the zoom level of the tile
+     * @param i the horizontal position of the tile
+     * @param j the vertical position of the tile
+     * @return a stream, or null if the tile is not in the store
+     * @throws IOException if the tile can't be read
+     */
+    InputStream read(int zoom, long i, long j) throws IOException;
+
+    /**
+     * Stores the encoded image of a tile and its metadata, replacing an
+     * older one.
+     *
+     * @param zoom the zoom level of the tile
+     * @param i the horizontal position of the tile
+     * @param j the vertical position of the tile
+     * @param data the encoded image
+     * @param metadata the metadata of the tile, or null
+     * @throws IOException if the tile can't be written
+     */
+    void write(int zoom, long i, long j, byte[] data, TileMetadata metadata) throws IOException;
+
+    /**
+     * Reads the metadata of a tile.
+     *
+     * @param zoom the zoom level of the tile
+     * @param i the horizontal position of the tile
+     * @param j the vertical position of the tile
+     * @return the metadata, or null if the tile or its metadata is not in the store
+     * @throws IOException if the metadata can't be read
+     */
+    TileMetadata readMetadata(int zoom, long i, long j) throws IOException;
+
+    /**
+     * Replaces the metadata of a tile that is in the store, for instance
+     * after it was revalidated.
+     *
+     * @param zoom the zoom level of the tile
+     * @param i the horizontal position of the tile
+     * @param j the vertical position of the tile
+     * @param metadata the new metadata
+     * @throws IOException if the metadata can't be written
+     */
+    void writeMetadata(int zoom, long i, long j, TileMetadata metadata) throws IOException;
+
+    void remove(int zoom, long i, long j) throws IOException;
+
+    int size();
+
+    /**
+     * Visits all tiles in the store.
+     *
+     * @param visitor the visitor
+     */
+    void forEach(EntryVisitor visitor);
+
+    interface EntryVisitor {
+        /**
+         * Visits a tile.
+         *
+         * @param key the key of the tile, see {@link com.gluonhq.impl.maps.TileIndex#key}
+         * @param size the number of bytes the tile takes in the store
+         * @param stamp a value that is higher for tiles that were stored later
+         */
+        void visit(long key, long size, long stamp);
+    }
+}
@@ -0,0 +1,427 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gluonhq.maps;
+
+import com.gluonhq.impl.maps.Mercator;
+import com.gluonhq.impl.maps.TileIndex;
+import com.gluonhq.impl.maps.TileQuadtree;
+import com.gluonhq.maps.ItemIndex.Entry;
+import javafx.geometry.Bounds;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.paint.Paint;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A MapLayer that draws its items into canvases instead of creating a node
+ * per item, so it can render many more items than a layer like
+ * {@link IndexedMapLayer}.
+ * <p>
+ * The layer is covered with canvas tiles of 256x256 pixels that are anchored
+ * to the map. When the map is panned, the canvas tiles are only translated,
+ * and just the tiles that come into view are painted. When the zoom changes,
+ * all visible tiles are repainted. Each canvas tile only paints the items
+ * that a query on the spatial index returns for its area.
+ * <p>
+ * Items are drawn by a {@link MarkerRenderer}, and polylines can be added
+ * with {@link #addPolyline(Polyline)}. Clicks on a marker are reported to the
+ * {@link #setOnItemClicked(Consumer) item clicked handler}, using the same
+ * spatial index to find the item under the mouse.
+ *
+ * @param <T> the type of the items
+ */
+public class CanvasMapLayer<T> extends MapLayer {
+
+    /**
+     * Draws an item on a canvas.
+     *
+     * @param <T> the type of the items
+     */
+    @FunctionalInterface
+    public interface MarkerRenderer<T> {
+
+        /**
+         * Draws an item centered at the given position.
+         *
+         * @param gc the graphics context of the canvas
+         * @param item the item
+         * @param x the x coordinate of the item on the canvas
+         * @param y the y coordinate of the item on the canvas
+         */
+        void render(GraphicsContext gc, T item, double x, double y);
+    }
+
+    /**
+     * A line through a sequence of map points.
+     */
+    public static final class Polyline {
+
+        private final double[] xs;
+        private final double[] ys;
+        private final Paint stroke;
+        private final double width;
+        private double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+        private double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+
+        /**
+         * Creates a polyline.
+         *
+         * @param points the points of the line
+         * @param stroke the paint of the line
+         * @param width the width of the line, in pixels
+         */
+        public Polyline(List<MapPoint> points, Paint stroke, double width) {
+            this.xs = new double[points.size()];
+            this.ys = new double[points.size()];
+            for (int k = 0; k < xs.length; k++) {
+                MapPoint point = points.get(k);
+                xs[k] = Mercator.x(point.getLongitude());
+                ys[k] = Mercator.y(point.getLatitude());
+                minX = Math.min(minX, xs[k]);
+                minY = Math.min(minY, ys[k]);
+                maxX = Math.max(maxX, xs[k]);
+                maxY = Math.max(maxY, ys[k]);
+            }
+            this.stroke = stroke;
+            this.width = width;
+        }
+    }
+
+    private static final int TILE_SIZE = 256;
+
+    private final ItemIndex<T> index;
+    private final MarkerRenderer<? super T> renderer;
+    private final double markerRadius;
+    private final List<Polyline> polylines = new ArrayList<>();
+
+    private final TileIndex<CanvasTile> tiles = new TileIndex<>();
+    private final List<CanvasTile> shown = new ArrayList<>();
+    private final List<CanvasTile> pool = new ArrayList<>();
+    private double zoom = Double.NaN;
+    private double scale, tx, ty;
+    private int stamp;
+    private boolean repaintAll;
+
+    private Consumer<? super T> onItemClicked;
+
+    // reused while painting
+    private GraphicsContext paintContext;
+    private double paintX, paintY;
+    private double[] lineXs = new double[16], lineYs = new double[16];
+    private final TileQuadtree.Visitor<Entry<T>> paintEntry = this::paint;
+    private Entry<T> picked;
+    private double pickX, pickY, pickDistance;
+    private final TileQuadtree.Visitor<Entry<T>> pickEntry = this::pick;
+
+    /**
+     * Creates a canvas layer.
+     *
+     * @param locator returns the position of an item
+     * @param renderer draws an item
+     * @param markerRadius the maximum distance, in pixels, from the position of
+     *                     an item that its renderer draws on, which is also
+     *                     the distance used to pick an item under the mouse
+     */
+    public CanvasMapLayer(Function<? super T, MapPoint> locator, MarkerRenderer<? super T> renderer, double markerRadius) {
+        this.index = new ItemIndex<>(locator);
+        this.renderer = renderer;
+        this.markerRadius = markerRadius;
+        addEventHandler(MouseEvent.MOUSE_CLICKED, e -> {
+            if (onItemClicked != null && e.isStillSincePress()) {
+                T item = pick(e.getX(), e.getY());
+                if (item != null) {
+                    onItemClicked.accept(item);
+                }
+            }
+        });
+    }
+
+    public void add(T item) {
+        invalidate(index.add(item));
+    }
+
+    public void addAll(Collection<? extends T> items) {
+        for (T item : items) {
+            invalidate(index.add(item));
+        }
+    }
+
+    /**
+     * Updates the position of an item, as returned by the locator function
+     *
+     * @param item the item
+     */
+    public void update(T item) {
+        invalidate(index.update(item));
+    }
+
+    public void updateAll(Collection<? extends T> items) {
+        for (T item : items) {
+            invalidate(index.update(item));
+        }
+    }
+
+    public void remove(T item) {
+        invalidate(index.remove(item));
+    }
+
+    public void removeAll(Collection<? extends T> items) {
+        for (T item : items) {
+            invalidate(index.remove(item));
+        }
+    }
+
+    public void clear() {
+        index.clear();
+        polylines.clear();
+        repaint();
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public void addPolyline(Polyline polyline) {
+        polylines.add(polyline);
+        repaint();
+    }
+
+    public void removePolyline(Polyline polyline) {
+        polylines.remove(polyline);
+        repaint();
+    }
+
+    /**
+     * Requests all visible canvas tiles to be repainted, e.g. when the
+     * appearance of the items has changed.
+     */
+    public void repaint() {
+        repaintAll = true;
+        markDirty();
+    }
+
+    /**
+     * Returns the item closest to the given position, within the marker
+     * radius
+     *
+     * @param x the x coordinate, relative to this layer
+     * @param y the y coordinate, relative to this layer
+     * @return the item, or null if there is no item at this position
+     */
+    public T pick(double x, double y) {
+        if (Double.isNaN(zoom)) {
+            return null;
+        }
+        pickX = (x - tx) / scale;
+        pickY = (y - ty) / scale;
+        double r = markerRadius / scale;
+        pickDistance = r * r;
+        picked = null;
+        index.query(pickX - r, pickY - r, pickX + r, pickY + r, pickEntry);
+        Entry<T> answer = picked;
+        picked = null;
+        return answer == null ? null : answer.item;
+    }
+
+    /**
+     * Sets the handler that is called when an item is clicked
+     *
+     * @param handler the handler, or null
+     */
+    public void setOnItemClicked(Consumer<? super T> handler) {
+        this.onItemClicked = handler;
+    }
+
+    @Override
+    protected void layoutLayer() {
+        if (getParent() == null || baseMap.getScene() == null) {
+            return;
+        }
+        Bounds bounds = getParent().getLayoutBounds();
+        double z = baseMap.zoom().get();
+        if (z != zoom) {
+            zoom = z;
+            scale = TILE_SIZE * Math.pow(2, z);
+            repaintAll = true;
+        }
+        tx = baseMap.getTranslateX();
+        ty = baseMap.getTranslateY();
+
+        long imin = (long) Math.floor(-tx / TILE_SIZE);
+        long jmin = (long) Math.floor(-ty / TILE_SIZE);
+        long imax = (long) Math.floor((-tx + bounds.getWidth()) / TILE_SIZE);
+        long jmax = (long) Math.floor((-ty + bounds.getHeight()) / TILE_SIZE);
+
+        stamp++;
+        for (long i = imin; i <= imax; i++) {
+            for (long j = jmin; j <= jmax; j++) {
+                long key = key(i, j);
+                CanvasTile tile = tiles.get(key);
+                if (tile == null) {
+                    if (pool.isEmpty()) {
+                        tile = new CanvasTile();
+                        getChildren().add(tile);
+                    } else {
+                        // pooled canvases stay in the scene graph, hidden
+                        tile = pool.remove(pool.size() - 1);
+                        tile.setVisible(true);
+                    }
+                    tile.i = i;
+                    tile.j = j;
+                    tile.dirty = true;
+                    tiles.put(key, tile);
+                    shown.add(tile);
+                }
+                tile.stamp = stamp;
+                if (tile.dirty || repaintAll) {
+                    paint(tile);
+                }
+                tile.setTranslateX(i * TILE_SIZE + tx);
+                tile.setTranslateY(j * TILE_SIZE + ty);
+            }
+        }
+        repaintAll = false;
+
+        // recycle the canvas tiles that went out of view
+        int n = 0;
+        for (int k = 0; k < shown.size(); k++) {
+            CanvasTile tile = shown.get(k);
+            if (tile.stamp == stamp) {
+                shown.set(n++, tile);
+            } else {
+                tiles.remove(key(tile.i, tile.j));
+                tile.setVisible(false);
+                pool.add(tile);
+            }
+        }
+        shown.subList(n, shown.size()).clear();
+    }
+
+    private void paint(CanvasTile tile) {
+        tile.dirty = false;
+        GraphicsContext gc = tile.getGraphicsContext2D();
+        gc.clearRect(0, 0, TILE_SIZE, TILE_SIZE);
+        paintX = tile.i * TILE_SIZE;
+        paintY = tile.j * TILE_SIZE;
+        double r = markerRadius / scale;
+        double minX = paintX / scale;
+        double minY = paintY / scale;
+        double maxX = (paintX + TILE_SIZE) / scale;
+        double maxY = (paintY + TILE_SIZE) / scale;
+
+        for (Polyline polyline : polylines) {
+            double w = polyline.width / scale;
+            if (polyline.maxX + w < minX || polyline.minX - w > maxX ||
+                    polyline.maxY + w < minY || polyline.minY - w > maxY) {
+                continue;
+            }
+            int count = polyline.xs.length;
+            if (lineXs.length < count) {
+                lineXs = new double[count];
+                lineYs = new double[count];
+            }
+            for (int k = 0; k < count; k++) {
+                lineXs[k] = polyline.xs[k] * scale - paintX;
+                lineYs[k] = polyline.ys[k] * scale - paintY;
+            }
+            gc.setStroke(polyline.stroke);
+            gc.setLineWidth(polyline.width);
+            gc.strokePolyline(lineXs, lineYs, count);
+        }
+
+        paintContext = gc;
+        index.query(minX - r, minY - r, maxX + r, maxY + r, paintEntry);
+        paintContext = null;
+    }
+
+    private void paint(Entry<T> entry) {
+        renderer.render(paintContext, entry.item, entry.x * scale - paintX, entry.y * scale - paintY);
+    }
+
+    private void pick(Entry<T> entry) {
+        double dx = entry.x - pickX;
+        double dy = entry.y - pickY;
+        double distance = dx * dx + dy * dy;
+        if (distance <= pickDistance) {
+            pickDistance = distance;
+            picked = entry;
+        }
+    }
+
+    /**
+     * Marks the canvas tiles around the old and new position of an item as
+     * dirty, so only those are repainted.
+     */
+    private void invalidate(Entry<T> entry) {
+        if (entry == null) {
+            return;
+        }
+        if (!Double.isNaN(zoom)) {
+            invalidate(entry.oldX, entry.oldY);
+            invalidate(entry.x, entry.y);
+        }
+        markDirty();
+    }
+
+    private void invalidate(double x, double y) {
+        double px = x * scale;
+        double py = y * scale;
+        long imin = (long) Math.floor((px - markerRadius) / TILE_SIZE);
+        long imax = (long) Math.floor((px + markerRadius) / TILE_SIZE);
+        long jmin = (long) Math.floor((py - markerRadius) / TILE_SIZE);
+        long jmax = (long) Math.floor((py + markerRadius) / TILE_SIZE);
+        for (long i = imin; i <= imax; i++) {
+            for (long j = jmin; j <= jmax; j++) {
+                CanvasTile tile = tiles.get(key(i, j));
+                if (tile != null) {
+                    tile.dirty = true;
+                }
+            }
+        }
+    }
+
+    private static long key(long i, long j) {
+        return (i << 32) ^ (j & 0xFFFFFFFFL);
+    }
+
+    private static final class CanvasTile extends Canvas {
+        long i, j;
+        int stamp;
+        boolean dirty;
+
+        CanvasTile() {
+            super(TILE_SIZE, TILE_SIZE);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gluonhq.maps;
+
+import com.gluonhq.impl.maps.ClusterIndex;
+import com.gluonhq.impl.maps.TileIndex;
+import com.gluonhq.impl.maps.TileQuadtree;
+import com.gluonhq.maps.ItemIndex.Entry;
+import javafx.scene.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * An {@link IndexedMapLayer} that groups nearby items into clusters when the
+ * map is zoomed out.
+ * <p>
+ * Clusters are precomputed for every integer zoom level up to the maximum
+ * cluster zoom: at each level, the items inside the same cell of 64x64
+ * pixels form a cluster, which is shown at the centroid of its items.
+ * Adding, moving or removing an item only updates the cells containing it,
+ * so no clusters are rebuilt. During layout, the clusters of
+ * <code>floor(zoom)</code> are looked up for the visible cells only.
+ * A cluster with a single item shows the node of that item. Beyond the
+ * maximum cluster zoom, all visible items are shown individually.
+ *
+ * @param <T> the type of the items
+ */
+public abstract class ClusterMapLayer<T> extends IndexedMapLayer<T> {
+
+    /**
+     * The default maximum zoom level at which items are clustered.
+     */
+    public static final int DEFAULT_MAX_CLUSTER_ZOOM = 16;
+
+    // cells of 256 / 2^2 = 64 pixels
+    private static final int CELL_SHIFT = 2;
+
+    private final ClusterIndex clusters;
+    private final ClusterIndex.Visitor showCluster = this::showCluster;
+    private final TileQuadtree.Visitor<Entry<T>> showSingle = this::showSingle;
+    private final double[] cellBounds = new double[4];
+    // the cell of the single item being shown
+    private long singleCell;
+
+    // the cluster nodes of the current zoom level, by cell key
+    private final TileIndex<ClusterNode> clusterNodes = new TileIndex<>();
+    private final List<ClusterNode> shownClusters = new ArrayList<>();
+    private int clusterZoom = -1;
+    private int clusterStamp;
+
+    protected ClusterMapLayer(Function<? super T, MapPoint> locator) {
+        this(locator, DEFAULT_MAX_CLUSTER_ZOOM);
+    }
+
+    /**
+     * Creates a cluster layer.
+     *
+     * @param locator returns the position of an item
+     * @param maxClusterZoom the maximum zoom level at which items are clustered
+     */
+    protected ClusterMapLayer(Function<? super T, MapPoint> locator, int maxClusterZoom) {
+        super(locator);
+        clusters = new ClusterIndex(maxClusterZoom, CELL_SHIFT);
+        getIndex().setListener(new ItemIndex.Listener<>() {
+            @Override
+            public void added(Entry<T> entry) {
+                clusters.add(entry.x, entry.y);
+            }
+
+            @Override
+            public void moved(Entry<T> entry) {
+                clusters.remove(entry.oldX, entry.oldY);
+                clusters.add(entry.x, entry.y);
+            }
+
+            @Override
+            public void removed(Entry<T> entry) {
+                clusters.remove(entry.x, entry.y);
+            }
+
+            @Override
+            public void cleared() {
+                clusters.clear();
+                clusterNodes.clear();
+                shownClusters.clear();
+            }
+        });
+    }
+
+    /**
+     * Creates the node that represents a cluster of items. The node is
+     * translated to the centroid of the items in the cluster.
+     *
+     * @param count the number of items in the cluster, at least 2
+     * @return the node for this cluster
+     */
+    protected abstract Node createClusterNode(int count);
+
+    @Override
+    protected void layoutLayer() {
+        if (!beginLayout()) {
+            return;
+        }
+        int zoom = (int) Math.floor(baseMap.zoom().get());
+        if (zoom != clusterZoom) {
+            // cell keys are only unique within a zoom level
+            clusterZoom = zoom;
+            clusterNodes.clear();
+        }
+        clusterStamp++;
+        if (zoom <= clusters.getMaxZoom()) {
+            clusters.query(zoom, viewMinX, viewMinY, viewMaxX, viewMaxY, showCluster);
+        } else {
+            getIndex().query(viewMinX, viewMinY, viewMaxX, viewMaxY, showEntry);
+        }
+        endLayout();
+
+        // remove the cluster nodes that were not shown
+        int n = 0;
+        for (int k = 0; k < shownClusters.size(); k++) {
+            ClusterNode cluster = shownClusters.get(k);
+            if (cluster.stamp == clusterStamp) {
+                shownClusters.set(n++, cluster);
+            } else {
+                getChildren().remove(cluster.node);
+                if (clusterNodes.get(cluster.cell) == cluster) {
+                    clusterNodes.remove(cluster.cell);
+                }
+            }
+        }
+        shownClusters.subList(n, shownClusters.size()).clear();
+    }
+
+    private void showCluster(long cell, int count, double x, double y) {
+        if (count == 1) {
+            clusters.getCellBounds(clusterZoom, cell, cellBounds);
+            singleCell = cell;
+            getIndex().query(cellBounds[0], cellBounds[1], cellBounds[2], cellBounds[3], showSingle);
+            return;
+        }
+        ClusterNode cluster = clusterNodes.get(cell);
+        if (cluster == null || cluster.count != count) {
+            if (cluster != null) {
+                // replaced, so it is removed at the end of this layout pass
+                cluster.stamp = clusterStamp - 1;
+            }
+            cluster = new ClusterNode(cell, count, createClusterNode(count));
+            clusterNodes.put(cell, cluster);
+            shownClusters.add(cluster);
+            getChildren().add(cluster.node);
+        }
+        cluster.stamp = clusterStamp;
+        cluster.node.setTranslateX(x * scale + tx);
+        cluster.node.setTranslateY(y * scale + ty);
+    }
+
+    private void showSingle(Entry<T> entry) {
+        // the cell bounds are inclusive, so skip items that the index put in a neighbouring cell
+        if (clusters.cell(clusterZoom, entry.x, entry.y) == singleCell) {
+            show(entry);
+        }
+    }
+
+    private static final class ClusterNode {
+        final long cell;
+        final int count;
+        final Node node;
+        int stamp;
+
+        ClusterNode(long cell, int count, Node node) {
+            this.cell = cell;
+            this.count = count;
+            this.node = node;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gluonhq.maps;
+
+import com.gluonhq.impl.maps.TileQuadtree;
+import com.gluonhq.maps.ItemIndex.Entry;
+import javafx.geometry.Bounds;
+import javafx.scene.Node;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A MapLayer for large sets of items. The items are kept in a spatial index,
+ * and only the items inside the visible part of the map get a node in the
+ * scene graph. Nodes are created by {@link #createNode(Object)} when an item
+ * comes into view, and they are removed when the item leaves the view.
+ * <p>
+ * The position of an item is obtained from the locator function that is
+ * passed to the constructor. When the position of an item changes,
+ * {@link #update(Object)} should be called.
+ * <p>
+ * The following code snippet shows a layer that displays red circles for a
+ * collection of vehicles:
+ * <pre>
+ * IndexedMapLayer&lt;Vehicle&gt; layer = new IndexedMapLayer&lt;&gt;(Vehicle::getPosition) {
+ *     {@literal @}Override
+ *     protected Node createNode(Vehicle vehicle) {
+ *         return new Circle(3, Color.RED);
+ *     }
+ * };
+ * layer.addAll(vehicles);
+ * </pre>
+ *
+ * @param <T> the type of the items
+ */
+public abstract class IndexedMapLayer<T> extends MapLayer {
+
+    private final ItemIndex<T> index;
+
+    // the entries that currently have a node in the scene graph
+    private final List<Entry<T>> visible = new ArrayList<>();
+    private final Set<Node> nodesToRemove = Collections.newSetFromMap(new IdentityHashMap<>());
+    final TileQuadtree.Visitor<Entry<T>> showEntry = this::show;
+    private int stamp;
+    private double viewportMargin = 32;
+
+    // the projection and the visible viewport, in normalized Mercator
+    // coordinates, of the current layout pass
+    double scale, tx, ty;
+    double viewMinX, viewMinY, viewMaxX, viewMaxY;
+
+    /**
+     * Creates a layer that finds the position of its items with the given
+     * locator function.
+     *
+     * @param locator returns the position of an item
+     */
+    protected IndexedMapLayer(Function<? super T, MapPoint> locator) {
+        this.index = new ItemIndex<>(locator);
+    }
+
+    /**
+     * Creates the node that represents an item. This method is called when an
+     * item comes into view. The node is translated to the position of the item
+     * on the map.
+     *
+     * @param item the item
+     * @return the node for this item
+     */
+    protected abstract Node createNode(T item);
+
+    /**
+     * Adds an item to this layer. If the item was already added, its position
+     * is updated.
+     *
+     * @param item the item
+     */
+    public void add(T item) {
+        index.add(item);
+        markDirty();
+    }
+
+    /**
+     * Adds all the items to this layer, and requests a single layout pass.
+     *
+     * @param items the items
+     */
+    public void addAll(Collection<? extends T> items) {
+        for (T item : items) {
+            index.add(item);
+        }
+        markDirty();
+    }
+
+    /**
+     * Updates the position of an item, as returned by the locator function
+     *
+     * @param item the item
+     */
+    public void update(T item) {
+        index.update(item);
+        markDirty();
+    }
+
+    /**
+     * Updates the position of all the items, and requests a single layout pass.
+     *
+     * @param items the items
+     */
+    public void updateAll(Collection<? extends T> items) {
+        for (T item : items) {
+            index.update(item);
+        }
+        markDirty();
+    }
+
+    /**
+     * Removes an item from this layer.
+     *
+     * @param item the item
+     */
+    public void remove(T item) {
+        doRemove(item);
+        markDirty();
+    }
+
+    /**
+     * Removes all the items from this layer, and requests a single layout pass.
+     *
+     * @param items the items
+     */
+    public void removeAll(Collection<? extends T> items) {
+        for (T item : items) {
+            doRemove(item);
+        }
+        markDirty();
+    }
+
+    /**
+     * Removes all items from this layer.
+     */
+    public void clear() {
+        index.clear();
+        visible.clear();
+        getChildren().clear();
+        markDirty();
+    }
+
+    /**
+     * Returns the number of items in this layer
+     * @return the number of items
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Returns the number of pixels around the visible part of the map where
+     * items still get a node, so nodes that are larger than a point don't pop
+     * up at the edges.
+     *
+     * @return the margin in pixels
+     */
+    public double getViewportMargin() {
+        return viewportMargin;
+    }
+
+    public void setViewportMargin(double viewportMargin) {
+        this.viewportMargin = viewportMargin;
+        markDirty();
+    }
+
+    /**
+     * Queries the spatial index for the items inside the visible part of the
+     * map. Nodes are created for items that came into view and removed for
+     * items that left it.
+     */
+    @Override
+    protected void layoutLayer() {
+        if (beginLayout()) {
+            index.query(viewMinX, viewMinY, viewMaxX, viewMaxY, showEntry);
+            endLayout();
+        }
+    }
+
+    ItemIndex<T> getIndex() {
+        return index;
+    }
+
+    /**
+     * Computes the projection and viewport for a layout pass. Entries that are
+     * not shown with {@link #show(Entry)} before {@link #endLayout()} lose
+     * their node.
+     *
+     * @return false if the map can't be laid out yet
+     */
+    boolean beginLayout() {
+        if (getParent() == null || baseMap.getScene() == null) {
+            return false;
+        }
+        Bounds bounds = getParent().getLayoutBounds();
+        scale = 256 * Math.pow(2, baseMap.zoom().get());
+        tx = baseMap.getTranslateX();
+        ty = baseMap.getTranslateY();
+        viewMinX = (-tx - viewportMargin) / scale;
+        viewMinY = (-ty - viewportMargin) / scale;
+        viewMaxX = (-tx + bounds.getWidth() + viewportMargin) / scale;
+        viewMaxY = (-ty + bounds.getHeight() + viewportMargin) / scale;
+        stamp++;
+        return true;
+    }
+
+    /**
+     * Releases the nodes of the entries that were not shown in this layout
+     * pass.
+     */
+    void endLayout() {
+        int n = 0;
+        for (int k = 0; k < visible.size(); k++) {
+            Entry<T> entry = visible.get(k);
+            if (entry.stamp == stamp) {
+                visible.set(n++, entry);
+            } else if (entry.node != null) {
+                nodesToRemove.add(entry.node);
+                entry.node = null;
+            }
+        }
+        visible.subList(n, visible.size()).clear();
+        if (!nodesToRemove.isEmpty()) {
+            getChildren().removeAll(nodesToRemove);
+            nodesToRemove.clear();
+        }
+    }
+
+    void show(Entry<T> entry) {
+        entry.stamp = stamp;
+        if (entry.node == null) {
+            entry.node = createNode(entry.item);
+            getChildren().add(entry.node);
+            visible.add(entry);
+        }
+        entry.node.setTranslateX(entry.x * scale + tx);
+        entry.node.setTranslateY(entry.y * scale + ty);
+    }
+
+    private void doRemove(T item) {
+        Entry<T> entry = index.remove(item);
+        if (entry != null && entry.node != null) {
+            // the entry is removed from the visible list during the next layout
+            getChildren().remove(entry.node);
+            entry.node = null;
+        }
+    }
+}
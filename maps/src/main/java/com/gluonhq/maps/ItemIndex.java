@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gluonhq.maps;
+
+import com.gluonhq.impl.maps.Mercator;
+import com.gluonhq.impl.maps.TileQuadtree;
+import javafx.scene.Node;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Keeps the items of a layer in a spatial index, at the normalized Mercator
+ * coordinates of the position returned by a locator function.
+ *
+ * @param <T> the type of the items
+ */
+final class ItemIndex<T> {
+
+    /**
+     * Is notified when the entries in the index change.
+     */
+    interface Listener<T> {
+        void added(Entry<T> entry);
+        void moved(Entry<T> entry);
+        void removed(Entry<T> entry);
+        void cleared();
+    }
+
+    private final Function<? super T, MapPoint> locator;
+    private Listener<T> listener;
+    private final Map<T, Entry<T>> entries = new HashMap<>();
+    private final TileQuadtree<Entry<T>> index = new TileQuadtree<>();
+
+    ItemIndex(Function<? super T, MapPoint> locator) {
+        this.locator = Objects.requireNonNull(locator);
+    }
+
+    void setListener(Listener<T> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Adds an item, or updates its position if it was already added.
+     *
+     * @param item the item
+     * @return the entry of the item
+     */
+    Entry<T> add(T item) {
+        Entry<T> entry = entries.get(item);
+        if (entry != null) {
+            relocate(entry);
+            return entry;
+        }
+        entry = new Entry<>(item);
+        locate(entry);
+        entries.put(item, entry);
+        index.insert(entry, entry.x, entry.y);
+        if (listener != null) {
+            listener.added(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Updates the position of an item.
+     *
+     * @param item the item
+     * @return the entry of the item, or null if it wasn't added
+     */
+    Entry<T> update(T item) {
+        Entry<T> entry = entries.get(item);
+        if (entry != null) {
+            relocate(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Removes an item.
+     *
+     * @param item the item
+     * @return the removed entry, or null if the item wasn't added
+     */
+    Entry<T> remove(T item) {
+        Entry<T> entry = entries.remove(item);
+        if (entry != null) {
+            index.remove(entry, entry.x, entry.y);
+            if (listener != null) {
+                listener.removed(entry);
+            }
+        }
+        return entry;
+    }
+
+    void clear() {
+        entries.clear();
+        index.clear();
+        if (listener != null) {
+            listener.cleared();
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    void query(double minX, double minY, double maxX, double maxY, TileQuadtree.Visitor<? super Entry<T>> visitor) {
+        index.query(minX, minY, maxX, maxY, visitor);
+    }
+
+    private void relocate(Entry<T> entry) {
+        double x = entry.x;
+        double y = entry.y;
+        locate(entry);
+        if (x != entry.x || y != entry.y) {
+            entry.oldX = x;
+            entry.oldY = y;
+            index.remove(entry, x, y);
+            index.insert(entry, entry.x, entry.y);
+            if (listener != null) {
+                listener.moved(entry);
+            }
+        }
+    }
+
+    private void locate(Entry<T> entry) {
+        MapPoint point = locator.apply(entry.item);
+        entry.x = Mercator.x(point.getLongitude());
+        entry.y = Mercator.y(point.getLatitude());
+        entry.oldX = entry.x;
+        entry.oldY = entry.y;
+    }
+
+    static final class Entry<T> {
+        final T item;
+        // the normalized Mercator coordinates of the item
+        double x, y;
+        // the coordinates before the last update
+        double oldX, oldY;
+        // the node of the item, for layers that create one
+        Node node;
+        int stamp;
+
+        Entry(T item) {
+            this.item = item;
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016, Gluon
+ * Copyright (c) 2016, 2026, Gluon
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -28,6 +28,7 @@
 package com.gluonhq.maps;
 
 import com.gluonhq.impl.maps.BaseMap;
+import com.gluonhq.impl.maps.Mercator;
 import javafx.geometry.Point2D;
 import javafx.scene.Parent;
 
@@ -116,4 +117,54 @@ public class MapLayer extends Parent {
         return baseMap.getMapPoint(lat, lon);
     }
 
+    /**
+     * This method computes the pixel coordinates for many latitude and
+     * longitude coordinates at once, without creating a Point2D per point.
+     * The output arrays can be the same as the input arrays.
+     *
+     * @param lats the latitudes
+     * @param lons the longitudes
+     * @param outX receives the x coordinates in pixels
+     * @param outY receives the y coordinates in pixels
+     * @return false if the map isn't showing yet, in which case the output
+     * arrays are unchanged
+     */
+    protected final boolean getMapPoints(double[] lats, double[] lons, double[] outX, double[] outY) {
+        return baseMap.getMapPoints(lats, lons, outX, outY);
+    }
+
+    /**
+     * This method converts latitude and longitude coordinates to Mercator
+     * coordinates normalized to [0, 1]. These don't depend on the zoom level or
+     * the position of the map, so a layer can compute them once, and use
+     * {@link #projectMercator(double[], double[], double[], double[])} on every
+     * layout, which is much cheaper than projecting the geographic
+     * coordinates again.
+     * The output arrays can be the same as the input arrays.
+     *
+     * @param lats the latitudes
+     * @param lons the longitudes
+     * @param outX receives the normalized x coordinates
+     * @param outY receives the normalized y coordinates
+     */
+    protected static void toMercator(double[] lats, double[] lons, double[] outX, double[] outY) {
+        Mercator.toMercator(lats, lons, outX, outY, lats.length);
+    }
+
+    /**
+     * This method computes the pixel coordinates for Mercator coordinates
+     * returned by {@link #toMercator(double[], double[], double[], double[])}.
+     * The output arrays can be the same as the input arrays.
+     *
+     * @param xs the normalized x coordinates
+     * @param ys the normalized y coordinates
+     * @param outX receives the x coordinates in pixels
+     * @param outY receives the y coordinates in pixels
+     * @return false if the map isn't showing yet, in which case the output
+     * arrays are unchanged
+     */
+    protected final boolean projectMercator(double[] xs, double[] ys, double[] outX, double[] outY) {
+        return baseMap.projectMercator(xs, ys, outX, outY);
+    }
+
 }
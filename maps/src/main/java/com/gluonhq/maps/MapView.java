@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016 - 2018, Gluon
+ * Copyright (c) 2016, 2026, Gluon
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -29,7 +29,13 @@ package com.gluonhq.maps;
 
 import com.gluonhq.attach.util.Platform;
 import com.gluonhq.impl.maps.BaseMap;
+import com.gluonhq.impl.maps.Metrics;
 import com.gluonhq.impl.maps.TileImageView;
+import com.gluonhq.maps.tile.TileCacheStatistics;
+import com.gluonhq.maps.tile.TileLoadStatistics;
+import com.gluonhq.maps.tile.TileMetrics;
+import com.gluonhq.maps.tile.TileMetricsRecorder;
+import com.gluonhq.maps.tile.TileSeeder;
 import javafx.animation.Animation.Status;
 import javafx.animation.Interpolator;
 import javafx.animation.KeyFrame;
@@ -41,8 +47,9 @@ import javafx.scene.layout.Region;
 import javafx.scene.shape.Rectangle;
 import javafx.util.Duration;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Supplier;
 
 /**
@@ -55,7 +62,7 @@ public class MapView extends Region {
 
     private final BaseMap baseMap;
     private Timeline timeline;
-    private final List<MapLayer> layers = new LinkedList<>();
+    private final List<MapLayer> layers = new ArrayList<>();
     private final Rectangle clip;
     private MapPoint centerPoint = null;
     private boolean zooming = false;
@@ -99,8 +106,7 @@ public class MapView extends Region {
             if (zooming || !enableDragging) {
                 return;
             }
-            baseMap.moveX(baseMap.x0 - t.getX());
-            baseMap.moveY(baseMap.y0 - t.getY());
+            baseMap.move(baseMap.x0 - t.getX(), baseMap.y0 - t.getY());
             baseMap.x0 = t.getX();
             baseMap.y0 = t.getY();
         });
@@ -219,6 +225,7 @@ public class MapView extends Region {
             new KeyFrame(Duration.seconds(waitTime + seconds), new KeyValue(baseMap.prefCenterLat(), mapPoint.getLatitude()), new KeyValue(baseMap.prefCenterLon(), mapPoint.getLongitude(), Interpolator.EASE_BOTH))
         );
         timeline.play();
+        baseMap.prefetchCenter(mapPoint.getLatitude(), mapPoint.getLongitude());
     }
 
     /**
@@ -231,6 +238,95 @@ public class MapView extends Region {
         TileImageView.setPlaceholderImageSupplier(supplier);
     }
 
+    /**
+     * Returns the maximum number of bytes the decoded tiles of this map can
+     * keep in memory
+     *
+     * @return the capacity of the tile cache in bytes
+     */
+    public long getTileCacheCapacity() {
+        return baseMap.getTileCacheCapacity();
+    }
+
+    /**
+     * Sets the maximum number of bytes the decoded tiles of this map can keep
+     * in memory. The size of a tile is the size of its decoded image, which is
+     * width * height * 4 bytes. When the capacity is exceeded, the least
+     * recently used tiles that are not shown are evicted.
+     *
+     * @param capacity the capacity of the tile cache in bytes
+     */
+    public void setTileCacheCapacity(long capacity) {
+        baseMap.setTileCacheCapacity(capacity);
+    }
+
+    /**
+     * Returns a snapshot of the hit, miss and eviction counters of the
+     * in-memory tile cache of this map
+     *
+     * @return the tile cache statistics
+     */
+    public TileCacheStatistics getTileCacheStatistics() {
+        return baseMap.getTileCacheStatistics();
+    }
+
+    /**
+     * Returns a snapshot of the number of tile loads that completed, failed
+     * or were cancelled, for all maps, and of the number of loaded tiles
+     * applied per frame. The load of a tile is cancelled when the tile
+     * leaves the view before its image is available.
+     *
+     * @return the tile load statistics
+     */
+    public static TileLoadStatistics getTileLoadStatistics() {
+        return TileImageView.getLoadStatistics();
+    }
+
+    /**
+     * Returns a snapshot of the size and the hit, miss and eviction counters
+     * of the persistent cache where downloaded tiles are stored, shared by all
+     * maps. The optional is empty if the tile retriever has no such cache.
+     *
+     * @return the disk cache statistics
+     */
+    public static Optional<TileCacheStatistics> getDiskCacheStatistics() {
+        return TileImageView.getRetrieverCacheStatistics();
+    }
+
+    /**
+     * Returns the seeder that fills the persistent cache, shared by all maps,
+     * with the tiles of a region ahead of time, or from a tile pack, so the
+     * region can be shown offline. The optional is empty if the tile
+     * retriever has no such cache.
+     *
+     * @return the tile seeder
+     */
+    public static Optional<TileSeeder> getTileSeeder() {
+        return TileImageView.getRetrieverSeeder();
+    }
+
+    /**
+     * Sets the recorder that receives the metrics of the tile pipeline of all
+     * maps: cache lookups, download and decode latencies, queue depths, and
+     * layout passes. When no recorder is set, which is the default, nothing
+     * is measured.
+     *
+     * @param recorder the recorder, for instance a {@link TileMetrics}, or
+     *                 null to stop recording
+     */
+    public static void setTileMetricsRecorder(TileMetricsRecorder recorder) {
+        Metrics.setRecorder(recorder);
+    }
+
+    /**
+     * Returns the recorder of the metrics of the tile pipeline.
+     *
+     * @return the recorder, or null if metrics are not recorded
+     */
+    public static TileMetricsRecorder getTileMetricsRecorder() {
+        return Metrics.recorder();
+    }
+
     private boolean dirty = false;
 
     protected void markDirty() {
@@ -247,8 +343,8 @@ public class MapView extends Region {
         final double h = getHeight();
 
         if (dirty) {
-            for (MapLayer layer : layers) {
-                layer.layoutLayer();
+            for (int i = 0; i < layers.size(); i++) {
+                layers.get(i).layoutLayer();
             }
         }
         super.layoutChildren();
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.gluonhq.maps.tile;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe histogram of non-negative values, such as latencies in
+ * nanoseconds. Every power of two is split into 4 buckets, so a percentile
+ * is accurate to 25%, with a fixed amount of memory and no allocation when a
+ * value is recorded.
+ */
+public final class Histogram {
+
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKETS = 62 * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Records a value. Negative values are recorded as 0.
+     *
+     * @param value the value
+     */
+    public void record(long value) {
+        buckets.incrementAndGet(bucket(Math.max(0, value)));
+        count.increment();
+        sum.add(Math.max(0, value));
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Returns the mean of the recorded values, or 0 if none were recorded.
+     * @return the mean
+     */
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Returns an upper bound of the value below which the specified fraction
+     * of the recorded values falls, or 0 if none were recorded.
+     *
+     * @param fraction the fraction, between 0 and 1, for instance 0.99 for
+     *                 the 99th percentile
+     * @return the percentile
+     */
+    public long getPercentile(double fraction) {
+        long[] counts = getBucketCounts();
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(1, Math.max(0, fraction)) * total));
+        long seen = 0;
+        for (int b = 0; b < counts.length; b++) {
+            seen += counts[b];
+            if (seen >= rank) {
+                return upperBound(b);
+            }
+        }
+        return upperBound(counts.length - 1);
+    }
+
+    /**
+     * Returns the number of values recorded in every bucket. The values of
+     * bucket <code>b</code> are at most {@link #upperBound(int)}.
+     * @return the counts of the buckets
+     */
+    public long[] getBucketCounts() {
+        long[] counts = new long[BUCKETS];
+        for (int b = 0; b < BUCKETS; b++) {
+            counts[b] = buckets.get(b);
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the largest value recorded in a bucket.
+     *
+     * @param bucket the index of the bucket
+     * @return the upper bound of the bucket
+     */
+    public static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - 2);
+        return lower + (1L << (exponent - 2)) - 1;
+    }
+
+    public void reset() {
+        for (int b = 0; b < BUCKETS; b++) {
+            buckets.set(b, 0);
+        }
+        count.reset();
+        sum.reset();
+    }
+
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - 2)) & (SUB_BUCKETS - 1);
+        return Math.min(BUCKETS - 1, (exponent - 1) * SUB_BUCKETS + sub);
+    }
+
+    @Override
+    public String toString() {
+        return "Histogram[count=" + getCount() + ", mean=" + getMean() + ", p50=" + getPercentile(0.5) +
+                ", p99=" + getPercentile(0.99) + "]";
+    }
+}
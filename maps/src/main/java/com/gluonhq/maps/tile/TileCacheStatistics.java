@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gluonhq.maps.tile;
+
+/**
+ * An immutable snapshot of the counters kept by a tile cache.
+ */
+public final class TileCacheStatistics {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long entryCount;
+    private final long size;
+    private final long capacity;
+
+    /**
+     * Creates a new snapshot.
+     *
+     * @param hitCount the number of lookups that found a cached tile
+     * @param missCount the number of lookups that didn't find a cached tile
+     * @param evictionCount the number of tiles evicted to stay within the capacity
+     * @param entryCount the number of tiles currently cached
+     * @param size the number of bytes currently used by the cached tiles
+     * @param capacity the maximum number of bytes the cache can use
+     */
+    public TileCacheStatistics(long hitCount, long missCount, long evictionCount,
+                               long entryCount, long size, long capacity) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.entryCount = entryCount;
+        this.size = size;
+        this.capacity = capacity;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the ratio of lookups that found a cached tile, or 0 if there
+     * haven't been any lookups yet.
+     * @return the hit ratio, between 0 and 1
+     */
+    public double getHitRatio() {
+        long total = hitCount + missCount;
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Returns the number of bytes currently used by the cached tiles
+     * @return the size in bytes
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the maximum number of bytes the cache can use
+     * @return the capacity in bytes
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public String toString() {
+        return "TileCacheStatistics[hits=" + hitCount + ", misses=" + missCount +
+                ", evictions=" + evictionCount + ", entries=" + entryCount +
+                ", size=" + size + ", capacity=" + capacity + "]";
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gluonhq.maps.tile;
+
+/**
+ * An immutable snapshot of the counters of the tile loads requested from the
+ * {@link TileRetriever}.
+ */
+public final class TileLoadStatistics {
+
+    private final long completedCount;
+    private final long failedCount;
+    private final long cancelledCount;
+    private final long frameCount;
+    private final long appliedCount;
+    private final int maxAppliedPerFrame;
+
+    /**
+     * Creates a new snapshot.
+     *
+     * @param completedCount the number of loads that completed with an image
+     * @param failedCount the number of loads that failed with an exception
+     * @param cancelledCount the number of loads that were cancelled
+     * @param frameCount the number of frames in which loaded tiles were applied
+     * @param appliedCount the number of loaded tiles applied in those frames
+     * @param maxAppliedPerFrame the largest number of tiles applied in a frame
+     */
+    public TileLoadStatistics(long completedCount, long failedCount, long cancelledCount,
+                              long frameCount, long appliedCount, int maxAppliedPerFrame) {
+        this.completedCount = completedCount;
+        this.failedCount = failedCount;
+        this.cancelledCount = cancelledCount;
+        this.frameCount = frameCount;
+        this.appliedCount = appliedCount;
+        this.maxAppliedPerFrame = maxAppliedPerFrame;
+    }
+
+    public long getCompletedCount() {
+        return completedCount;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * Returns the number of loads that were cancelled, because their tile
+     * left the view before it was loaded, or because they were dropped by
+     * the tile retriever
+     * @return the number of cancelled loads
+     */
+    public long getCancelledCount() {
+        return cancelledCount;
+    }
+
+    /**
+     * Returns the number of frames in which the results of tile loads were
+     * applied to the map. The results that arrive between two frames are
+     * applied together.
+     * @return the number of frames
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Returns the number of results of tile loads that were applied in
+     * those frames
+     * @return the number of applied results
+     */
+    public long getAppliedCount() {
+        return appliedCount;
+    }
+
+    public int getMaxAppliedPerFrame() {
+        return maxAppliedPerFrame;
+    }
+
+    /**
+     * Returns the average number of results of tile loads applied per
+     * frame, or 0 if none were applied yet.
+     * @return the average number of tiles per frame
+     */
+    public double getAverageAppliedPerFrame() {
+        return frameCount == 0 ? 0 : (double) appliedCount / frameCount;
+    }
+
+    @Override
+    public String toString() {
+        return "TileLoadStatistics[completed=" + completedCount + ", failed=" + failedCount +
+                ", cancelled=" + cancelledCount + ", frames=" + frameCount + ", applied=" + appliedCount +
+                ", maxPerFrame=" + maxAppliedPerFrame + "]";
+    }
+}
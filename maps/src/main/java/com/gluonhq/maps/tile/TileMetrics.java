@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.gluonhq.maps.tile;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link TileMetricsRecorder} that keeps counters of the cache lookups,
+ * histograms of the latencies and of the layout passes, and the last depth
+ * of the download and decode queues.
+ * <p>
+ * It implements {@link TileMetricsMXBean}, so it can be registered with the
+ * platform MBean server:
+ * <pre>
+ * TileMetrics metrics = new TileMetrics();
+ * MapView.setTileMetricsRecorder(metrics);
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(metrics,
+ *         new ObjectName("com.gluonhq.maps:type=TileMetrics"));
+ * </pre>
+ */
+public class TileMetrics implements TileMetricsRecorder, TileMetricsMXBean {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.;
+
+    private final LongAdder memoryCacheHits = new LongAdder();
+    private final LongAdder memoryCacheMisses = new LongAdder();
+    private final LongAdder diskCacheHits = new LongAdder();
+    private final LongAdder diskCacheMisses = new LongAdder();
+    private final LongAdder downloadFailures = new LongAdder();
+    private final Histogram downloadLatency = new Histogram();
+    private final Histogram decodeLatency = new Histogram();
+    private final Histogram layoutPassDuration = new Histogram();
+    private final Histogram tilesPerLayoutPass = new Histogram();
+    private volatile int downloadQueueSize;
+    private volatile int downloadsInFlight;
+    private volatile int decodeQueueSize;
+
+    @Override
+    public void recordMemoryCacheLookup(boolean hit) {
+        (hit ? memoryCacheHits : memoryCacheMisses).increment();
+    }
+
+    @Override
+    public void recordDiskCacheLookup(boolean hit) {
+        (hit ? diskCacheHits : diskCacheMisses).increment();
+    }
+
+    @Override
+    public void recordDownload(long nanos, boolean success) {
+        if (success) {
+            downloadLatency.record(nanos);
+        } else {
+            downloadFailures.increment();
+        }
+    }
+
+    @Override
+    public void recordDecode(long nanos) {
+        decodeLatency.record(nanos);
+    }
+
+    @Override
+    public void recordDownloadQueue(int queued, int inFlight) {
+        downloadQueueSize = queued;
+        downloadsInFlight = inFlight;
+    }
+
+    @Override
+    public void recordDecodeQueue(int queued) {
+        decodeQueueSize = queued;
+    }
+
+    @Override
+    public void recordLayoutPass(long nanos, int tiles) {
+        layoutPassDuration.record(nanos);
+        tilesPerLayoutPass.record(tiles);
+    }
+
+    /**
+     * Returns the histogram of the latencies of the successful downloads, in
+     * nanoseconds.
+     * @return the download latencies
+     */
+    public Histogram getDownloadLatency() {
+        return downloadLatency;
+    }
+
+    /**
+     * Returns the histogram of the decode latencies, in nanoseconds.
+     * @return the decode latencies
+     */
+    public Histogram getDecodeLatency() {
+        return decodeLatency;
+    }
+
+    /**
+     * Returns the histogram of the durations of the layout passes, in
+     * nanoseconds.
+     * @return the layout pass durations
+     */
+    public Histogram getLayoutPassDuration() {
+        return layoutPassDuration;
+    }
+
+    /**
+     * Returns the histogram of the number of tiles in the view at every
+     * layout pass.
+     * @return the tiles per layout pass
+     */
+    public Histogram getTilesPerLayoutPass() {
+        return tilesPerLayoutPass;
+    }
+
+    @Override
+    public long getMemoryCacheHitCount() {
+        return memoryCacheHits.sum();
+    }
+
+    @Override
+    public long getMemoryCacheMissCount() {
+        return memoryCacheMisses.sum();
+    }
+
+    @Override
+    public long getDiskCacheHitCount() {
+        return diskCacheHits.sum();
+    }
+
+    @Override
+    public long getDiskCacheMissCount() {
+        return diskCacheMisses.sum();
+    }
+
+    /**
+     * Returns the number of successful downloads.
+     * @return the download count
+     */
+    @Override
+    public long getDownloadCount() {
+        return downloadLatency.getCount();
+    }
+
+    @Override
+    public long getDownloadFailureCount() {
+        return downloadFailures.sum();
+    }
+
+    @Override
+    public double getDownloadLatencyMean() {
+        return downloadLatency.getMean() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getDownloadLatency99thPercentile() {
+        return downloadLatency.getPercentile(0.99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public long getDecodeCount() {
+        return decodeLatency.getCount();
+    }
+
+    @Override
+    public double getDecodeLatencyMean() {
+        return decodeLatency.getMean() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getDecodeLatency99thPercentile() {
+        return decodeLatency.getPercentile(0.99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public int getDownloadQueueSize() {
+        return downloadQueueSize;
+    }
+
+    @Override
+    public int getDownloadsInFlight() {
+        return downloadsInFlight;
+    }
+
+    @Override
+    public int getDecodeQueueSize() {
+        return decodeQueueSize;
+    }
+
+    @Override
+    public long getLayoutPassCount() {
+        return layoutPassDuration.getCount();
+    }
+
+    @Override
+    public double getLayoutPassDurationMean() {
+        return layoutPassDuration.getMean() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getLayoutPassDuration99thPercentile() {
+        return layoutPassDuration.getPercentile(0.99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getTilesPerLayoutPassMean() {
+        return tilesPerLayoutPass.getMean();
+    }
+
+    /**
+     * Resets the counters and the histograms. The queue depths are kept, as
+     * they are not cumulative.
+     */
+    @Override
+    public void reset() {
+        memoryCacheHits.reset();
+        memoryCacheMisses.reset();
+        diskCacheHits.reset();
+        diskCacheMisses.reset();
+        downloadFailures.reset();
+        downloadLatency.reset();
+        decodeLatency.reset();
+        layoutPassDuration.reset();
+        tilesPerLayoutPass.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "TileMetrics[memoryCache=" + getMemoryCacheHitCount() + "/" + getMemoryCacheMissCount() +
+                ", diskCache=" + getDiskCacheHitCount() + "/" + getDiskCacheMissCount() +
+                ", downloads=" + downloadLatency + ", failures=" + getDownloadFailureCount() +
+                ", decodes=" + decodeLatency + ", layoutPasses=" + layoutPassDuration +
+                ", downloadQueue=" + downloadQueueSize + ", inFlight=" + downloadsInFlight +
+                ", decodeQueue=" + decodeQueueSize + "]";
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.gluonhq.maps.tile;
+
+/**
+ * Receives the measurements of the tile pipeline of the maps: cache lookups,
+ * download and decode latencies, the depth of the download and decode
+ * queues, and the layout passes of the maps.
+ * <p>
+ * A recorder is set with
+ * {@link com.gluonhq.maps.MapView#setTileMetricsRecorder(TileMetricsRecorder)}.
+ * Until then, nothing is measured, and the pipeline only pays for a null
+ * check at every measuring point. {@link TileMetrics} is a recorder that keeps
+ * counters and histograms, and can be registered as an MXBean. Other
+ * implementations can forward the measurements to a metrics registry.
+ * <p>
+ * The methods are called on the threads of the pipeline, including the
+ * JavaFX application thread, so they must be thread-safe and return
+ * quickly. All methods do nothing by default.
+ */
+public interface TileMetricsRecorder {
+
+    /**
+     * Called when a map looks up a tile in its memory cache, for a tile that
+     * isn't shown yet.
+     *
+     * @param hit true if the tile was cached
+     */
+    default void recordMemoryCacheLookup(boolean hit) {
+    }
+
+    /**
+     * Called when the tile retriever looks up a tile in its disk cache.
+     *
+     * @param hit true if the tile was cached
+     */
+    default void recordDiskCacheLookup(boolean hit) {
+    }
+
+    /**
+     * Called when a download of a tile completes.
+     *
+     * @param nanos the time from the request to the end of the response, in
+     *              nanoseconds
+     * @param success false if the download failed or was cancelled
+     */
+    default void recordDownload(long nanos, boolean success) {
+    }
+
+    /**
+     * Called when a tile is decoded.
+     *
+     * @param nanos the time it took to decode the tile, in nanoseconds
+     */
+    default void recordDecode(long nanos) {
+    }
+
+    /**
+     * Called when the downloads that are queued or in flight change.
+     *
+     * @param queued the number of queued downloads
+     * @param inFlight the number of downloads in flight
+     */
+    default void recordDownloadQueue(int queued, int inFlight) {
+    }
+
+    /**
+     * Called when a tile is queued for decoding, and when its decoding starts.
+     *
+     * @param queued the number of tiles waiting to be decoded
+     */
+    default void recordDecodeQueue(int queued) {
+    }
+
+    /**
+     * Called after a map laid out its tiles, following a pan or a zoom.
+     *
+     * @param nanos the duration of the layout pass, in nanoseconds
+     * @param tiles the number of tiles in the view
+     */
+    default void recordLayoutPass(long nanos, int tiles) {
+    }
+}
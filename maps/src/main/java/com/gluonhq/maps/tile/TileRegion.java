@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.gluonhq.maps.tile;
+
+import com.gluonhq.impl.maps.BaseMap;
+import com.gluonhq.impl.maps.Mercator;
+import com.gluonhq.maps.MapPoint;
+
+/**
+ * A geographic bounding box and a range of zoom levels, that together
+ * select the tiles to keep available offline, see {@link TileSeeder}.
+ * <p>
+ * When the longitude of the north-west corner is greater than the one of the
+ * south-east corner, the region crosses the antimeridian. Latitudes are
+ * limited to the range covered by the map tiles.
+ */
+public final class TileRegion {
+
+    // the latitude of the edges of the map tiles
+    private static final double MAX_LATITUDE = 85.0511287798;
+
+    private final double north, west, south, east;
+    private final int minZoom, maxZoom;
+    // the first tile and the number of tiles covered at each zoom level, indexed by zoom - minZoom
+    private final long[] firstI, columns, firstJ, rows;
+    private final long tileCount;
+
+    /**
+     * Creates a region.
+     *
+     * @param northWest the north-west corner of the bounding box
+     * @param southEast the south-east corner of the bounding box
+     * @param minZoom the lowest zoom level of the tiles, at least 0
+     * @param maxZoom the highest zoom level of the tiles, at least minZoom
+     * @throws IllegalArgumentException if the zoom range is invalid, or the
+     * north-west corner is south of the south-east corner
+     */
+    public TileRegion(MapPoint northWest, MapPoint southEast, int minZoom, int maxZoom) {
+        if (minZoom < 0 || maxZoom < minZoom || maxZoom >= BaseMap.MAX_ZOOM) {
+            throw new IllegalArgumentException("Invalid zoom range " + minZoom + " to " + maxZoom);
+        }
+        if (northWest.getLatitude() < southEast.getLatitude()) {
+            throw new IllegalArgumentException("The north-west corner is south of the south-east corner");
+        }
+        this.north = clamp(northWest.getLatitude(), -MAX_LATITUDE, MAX_LATITUDE);
+        this.west = clamp(northWest.getLongitude(), -180, 180);
+        this.south = clamp(southEast.getLatitude(), -MAX_LATITUDE, MAX_LATITUDE);
+        this.east = clamp(southEast.getLongitude(), -180, 180);
+        this.minZoom = minZoom;
+        this.maxZoom = maxZoom;
+
+        int levels = maxZoom - minZoom + 1;
+        firstI = new long[levels];
+        columns = new long[levels];
+        firstJ = new long[levels];
+        rows = new long[levels];
+        long count = 0;
+        for (int k = 0; k < levels; k++) {
+            long n = 1L << (minZoom + k);
+            long lastI = tile(Mercator.x(east), n);
+            firstI[k] = tile(Mercator.x(west), n);
+            columns[k] = west <= east ? lastI - firstI[k] + 1 : Math.min(n, n - firstI[k] + lastI + 1);
+            firstJ[k] = tile(Mercator.y(north), n);
+            rows[k] = tile(Mercator.y(south), n) - firstJ[k] + 1;
+            count += columns[k] * rows[k];
+        }
+        tileCount = count;
+    }
+
+    private static long tile(double coordinate, long n) {
+        return Math.max(0, Math.min(n - 1, (long) Math.floor(coordinate * n)));
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    public MapPoint getNorthWest() {
+        return new MapPoint(north, west);
+    }
+
+    public MapPoint getSouthEast() {
+        return new MapPoint(south, east);
+    }
+
+    public int getMinZoom() {
+        return minZoom;
+    }
+
+    public int getMaxZoom() {
+        return maxZoom;
+    }
+
+    /**
+     * Returns the number of tiles of the region, at all its zoom levels.
+     *
+     * @return the number of tiles
+     */
+    public long getTileCount() {
+        return tileCount;
+    }
+
+    /**
+     * Returns the number of tiles of the region at a zoom level.
+     *
+     * @param zoom the zoom level
+     * @return the number of tiles, or 0 if the zoom level is outside the
+     * zoom range of the region
+     */
+    public long getTileCount(int zoom) {
+        if (zoom < minZoom || zoom > maxZoom) {
+            return 0;
+        }
+        return columns[zoom - minZoom] * rows[zoom - minZoom];
+    }
+
+    /**
+     * Returns true if a tile belongs to the region.
+     *
+     * @param zoom the zoom level of the tile
+     * @param i the horizontal position of the tile
+     * @param j the vertical position of the tile
+     * @return true if the tile is in the region
+     */
+    public boolean contains(int zoom, long i, long j) {
+        if (zoom < minZoom || zoom > maxZoom) {
+            return false;
+        }
+        int k = zoom - minZoom;
+        long n = 1L << zoom;
+        long column = Math.floorMod(i - firstI[k], n);
+        return i >= 0 && i < n && column < columns[k] && j >= firstJ[k] && j < firstJ[k] + rows[k];
+    }
+
+    /**
+     * Visits the tiles of the region, from the lowest to the highest zoom
+     * level, and row by row within a zoom level.
+     *
+     * @param visitor the visitor
+     * @return true if all tiles were visited, false if the visitor stopped
+     */
+    public boolean forEachTile(TileVisitor visitor) {
+        for (int k = 0; k < columns.length; k++) {
+            int zoom = minZoom + k;
+            long n = 1L << zoom;
+            for (long j = firstJ[k]; j < firstJ[k] + rows[k]; j++) {
+                for (long c = 0; c < columns[k]; c++) {
+                    if (!visitor.visit(zoom, (firstI[k] + c) % n, j)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "TileRegion[" + north + ", " + west + " to " + south + ", " + east +
+                ", zoom " + minZoom + " to " + maxZoom + ", " + tileCount + " tiles]";
+    }
+
+    @FunctionalInterface
+    public interface TileVisitor {
+        /**
+         * Visits a tile.
+         *
+         * @param zoom the zoom level of the tile
+         * @param i the horizontal position of the tile
+         * @param j the vertical position of the tile
+         * @return true to continue with the next tile, false to stop
+         */
+        boolean visit(int zoom, long i, long j);
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Gluon
+ * Copyright (c) 2018, 2026, Gluon
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -29,6 +29,7 @@ package com.gluonhq.maps.tile;
 
 import javafx.scene.image.Image;
 
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 public interface TileRetriever {
@@ -40,8 +41,76 @@ public interface TileRetriever {
      * @param zoom the desired zoom level for the tile to load
      * @param i the horizontal position of the tile to load
      * @param j the vertical position of the tile to load
-     * @return a completableFuture with the image representing the tile
+     * @return a completableFuture with the image representing the tile.
+     * The caller cancels this future when the tile is no longer needed, for
+     * instance because it left the view, and implementations should then
+     * stop any pending work for the tile, including queued and running
+     * downloads.
      */
     CompletableFuture<Image> loadTile(int zoom, long i, long j);
 
+    /**
+     * Called when the visible part of a map changes, so implementations can
+     * load the tiles closest to the center of the view first, and skip
+     * pending tiles that are no longer needed. When several maps are
+     * showing, the map that changed last is prioritised.
+     * The default implementation does nothing.
+     *
+     * @param zoom the zoom level of the tiles that are shown
+     * @param centerI the horizontal tile coordinate of the center of the view,
+     *                at this zoom level
+     * @param centerJ the vertical tile coordinate of the center of the view,
+     *                at this zoom level
+     */
+    default void setViewport(int zoom, double centerI, double centerJ) {
+    }
+
+    /**
+     * Hints that a tile that isn't shown yet is likely to be needed soon,
+     * for instance because it is next to the view, ahead of a drag, or at the
+     * zoom level the map is zooming to. Implementations with a cache may load
+     * the tile into it, at a lower priority than the tiles that are loaded
+     * with {@link #loadTile(int, long, long)}, and may ignore the hint.
+     * The default implementation does nothing.
+     *
+     * @param zoom the zoom level of the tile
+     * @param i the horizontal position of the tile
+     * @param j the vertical position of the tile
+     */
+    default void prefetch(int zoom, long i, long j) {
+    }
+
+    /**
+     * Returns the highest zoom level the source of this retriever has tiles
+     * for. Maps don't load tiles beyond this level: when they are zoomed in
+     * further, the tiles of this level are scaled up.
+     * The default implementation returns 19.
+     *
+     * @return the highest zoom level with tiles
+     */
+    default int getMaxZoom() {
+        return 19;
+    }
+
+    /**
+     * Returns the statistics of the persistent cache of this retriever, if it
+     * has one. The default implementation returns an empty optional.
+     *
+     * @return the cache statistics
+     */
+    default Optional<TileCacheStatistics> getCacheStatistics() {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the seeder that fills the persistent cache of this retriever
+     * with the tiles of a region, to use them offline, if it has such a
+     * cache. The default implementation returns an empty optional.
+     *
+     * @return the seeder
+     */
+    default Optional<TileSeeder> getSeeder() {
+        return Optional.empty();
+    }
+
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.gluonhq.maps.tile;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * An immutable snapshot of the progress of seeding a {@link TileRegion}.
+ * Every tile of the region is either downloaded, skipped because it was
+ * cached already, or failed.
+ */
+public final class TileSeedProgress {
+
+    private final long totalCount;
+    private final long downloadedCount;
+    private final long skippedCount;
+    private final long failedCount;
+    private final long downloadedBytes;
+    private final long elapsedNanos;
+
+    /**
+     * Creates a new snapshot.
+     *
+     * @param totalCount the number of tiles of the region
+     * @param downloadedCount the number of tiles that were downloaded
+     * @param skippedCount the number of tiles that were cached already
+     * @param failedCount the number of tiles that couldn't be downloaded
+     * @param downloadedBytes the number of bytes of the downloaded tiles
+     * @param elapsedNanos the time since the seeding started, in nanoseconds
+     */
+    public TileSeedProgress(long totalCount, long downloadedCount, long skippedCount, long failedCount,
+                            long downloadedBytes, long elapsedNanos) {
+        this.totalCount = totalCount;
+        this.downloadedCount = downloadedCount;
+        this.skippedCount = skippedCount;
+        this.failedCount = failedCount;
+        this.downloadedBytes = downloadedBytes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getDownloadedCount() {
+        return downloadedCount;
+    }
+
+    public long getSkippedCount() {
+        return skippedCount;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * Returns the number of tiles that are done: downloaded, skipped or
+     * failed.
+     *
+     * @return the number of completed tiles
+     */
+    public long getCompletedCount() {
+        return downloadedCount + skippedCount + failedCount;
+    }
+
+    public long getRemainingCount() {
+        return Math.max(0, totalCount - getCompletedCount());
+    }
+
+    /**
+     * Returns the ratio of completed tiles, or 1 if the region has no tiles.
+     *
+     * @return the completed ratio, between 0 and 1
+     */
+    public double getCompletedRatio() {
+        return totalCount == 0 ? 1 : (double) getCompletedCount() / totalCount;
+    }
+
+    public long getDownloadedBytes() {
+        return downloadedBytes;
+    }
+
+    public Duration getElapsed() {
+        return Duration.ofNanos(elapsedNanos);
+    }
+
+    /**
+     * Returns the number of tiles that were downloaded or failed per second.
+     * Skipped tiles are not counted, as they take no time.
+     *
+     * @return the throughput in tiles per second, or 0 if no time elapsed
+     */
+    public double getTilesPerSecond() {
+        return elapsedNanos == 0 ? 0 : (downloadedCount + failedCount) * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Returns the number of bytes that were downloaded per second.
+     *
+     * @return the throughput in bytes per second, or 0 if no time elapsed
+     */
+    public double getBytesPerSecond() {
+        return elapsedNanos == 0 ? 0 : downloadedBytes * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Returns an estimate of the time it takes to complete the remaining
+     * tiles at the current throughput, assuming none of them is cached.
+     * The estimate is empty until a tile was downloaded.
+     *
+     * @return the estimated remaining time
+     */
+    public Optional<Duration> getEstimatedTimeRemaining() {
+        double tilesPerSecond = getTilesPerSecond();
+        if (tilesPerSecond == 0) {
+            return getRemainingCount() == 0 ? Optional.of(Duration.ZERO) : Optional.empty();
+        }
+        return Optional.of(Duration.ofNanos((long) (getRemainingCount() / tilesPerSecond * 1e9)));
+    }
+
+    @Override
+    public String toString() {
+        return "TileSeedProgress[total=" + totalCount + ", downloaded=" + downloadedCount +
+                ", skipped=" + skippedCount + ", failed=" + failedCount + ", bytes=" + downloadedBytes +
+                ", elapsed=" + elapsedNanos / 1_000_000 + "ms]";
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.gluonhq.maps.tile;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Fills the persistent cache of a tile retriever ahead of time, so the
+ * tiles of a region can be shown without a network connection.
+ * <p>
+ * A region is either downloaded with {@link #seed}, or imported from a
+ * tile pack with {@link #importPack}. A pack is a single file with the
+ * tiles of a region, that is exported with {@link #exportPack} once, for
+ * instance on a machine that seeded the region, and then copied to
+ * every device, so they don't have to download the tiles themselves.
+ * <p>
+ * Seeded tiles are kept like any other cached tile, so the capacity of the
+ * cache has to be large enough for them, otherwise older tiles are evicted.
+ * Tiles that are stale are still shown while there is no network
+ * connection. Bulk downloads have to be allowed by the usage policy of the
+ * tile server.
+ * <p>
+ * The operations run one at a time, in the background, and can be
+ * stopped by cancelling the future they return.
+ */
+public interface TileSeeder {
+
+    /**
+     * Downloads the tiles of a region into the cache. Tiles that are cached
+     * already are skipped, so seeding a region again resumes a seeding that
+     * was interrupted, and retries the tiles that failed.
+     *
+     * @param region the region
+     * @param concurrency the maximum number of tiles that are downloaded at
+     *                    the same time
+     * @param listener receives the progress periodically, on a background
+     *                 thread, or null
+     * @return a future with the final progress, that completes once all
+     * downloaded tiles are written to the cache
+     * @throws IllegalArgumentException if concurrency is below 1
+     */
+    CompletableFuture<TileSeedProgress> seed(TileRegion region, int concurrency, Consumer<TileSeedProgress> listener);
+
+    /**
+     * Writes the cached tiles of a region to a tile pack. Tiles of the region
+     * that are not cached are left out.
+     *
+     * @param region the region
+     * @param pack the file to write, that is replaced if it exists
+     * @return a future with the number of tiles written to the pack
+     */
+    CompletableFuture<Long> exportPack(TileRegion region, Path pack);
+
+    /**
+     * Copies the tiles of a tile pack into the cache, replacing the cached
+     * versions of those tiles.
+     *
+     * @param pack the pack
+     * @return a future with the number of tiles imported, that fails if the
+     * file is not a tile pack or is damaged. The tiles before the damaged
+     * part are imported anyway.
+     */
+    CompletableFuture<Long> importPack(Path pack);
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2019, Gluon
+ * Copyright (c) 2018, 2026, Gluon
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -32,6 +32,8 @@ module com.gluonhq.maps {
     requires com.gluonhq.attach.util;
 
     requires transitive java.logging;
+    requires java.net.http;
+    requires static jdk.jfr;
 
     uses com.gluonhq.maps.tile.TileRetriever;
 
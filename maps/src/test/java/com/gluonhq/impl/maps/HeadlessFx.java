@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.gluonhq.impl.maps;
+
+import com.gluonhq.maps.MapView;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Starts the JavaFX platform once for all the tests, and creates maps that
+ * are laid out without being shown in a window.
+ */
+final class HeadlessFx {
+
+    private static boolean started;
+
+    private HeadlessFx() {
+    }
+
+    static synchronized void start() throws InterruptedException {
+        if (started) {
+            return;
+        }
+        CountDownLatch latch = new CountDownLatch(1);
+        Platform.startup(latch::countDown);
+        latch.await();
+        started = true;
+    }
+
+    /**
+     * Creates a map view of the given size, and returns its map, laid out at
+     * the given zoom level and center. A map that isn't shown can be used
+     * from any thread, as long as it is always the same one.
+     */
+    static BaseMap createMap(double width, double height, double zoom, double lat, double lon) {
+        MapView mapView = new MapView();
+        new Scene(mapView, width, height);
+        mapView.resize(width, height);
+        mapView.layout();
+        BaseMap baseMap = (BaseMap) mapView.getChildrenUnmodifiable().stream()
+                .filter(BaseMap.class::isInstance)
+                .findFirst()
+                .orElseThrow();
+        baseMap.setZoom(zoom);
+        baseMap.setCenter(lat, lon);
+        baseMap.layout();
+        return baseMap;
+    }
+
+    // runs on the JavaFX thread, and waits for the result
+    static <T> T call(Callable<T> callable) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(callable.call());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        return result.get(10, TimeUnit.SECONDS);
+    }
+
+    // waits until the condition, checked on the JavaFX thread, holds
+    static boolean await(BooleanSupplier condition) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!call(condition::getAsBoolean)) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+}
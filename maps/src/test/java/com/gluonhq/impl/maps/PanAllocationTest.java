@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.gluonhq.impl.maps;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Records the allocations of a map that is dragged around, once its tiles
+ * are loaded, with the allocation samples of JFR, and checks that none of
+ * them is made by the map. An allocation counts when any frame of its stack
+ * trace is in the map, so what JavaFX or the JDK allocate on behalf of the
+ * map counts as well. Adding and removing the nodes of the tiles allocates,
+ * so the map is dragged over less than a tile. The allocation samples exist
+ * since JDK 16.
+ */
+@EnabledForJreRange(min = JRE.JAVA_16)
+class PanAllocationTest {
+
+    private static final String ALLOCATION_SAMPLE = "jdk.ObjectAllocationSample";
+    private static final String MAPS_PACKAGE = "com.gluonhq.impl.maps.";
+    private static final String MAPS_CATEGORY = "Gluon Maps";
+
+    // the circle of a turn is 64 * 10 / pi, about 200 pixels wide
+    private static final int STEPS_PER_TURN = 64;
+    private static final double STEP = 10;
+    private static final int WARMUP_TURNS = 300;
+    private static final int RECORDED_TURNS = 300;
+
+    // keeps the control allocations reachable, so they aren't optimized away
+    private static Object[] control;
+
+    @BeforeAll
+    static void startPlatform() throws InterruptedException {
+        HeadlessFx.start();
+    }
+
+    @Test
+    void draggingDoesNotAllocate() throws Exception {
+        assumeTrue(FlightRecorder.isAvailable() && FlightRecorder.getFlightRecorder().getEventTypes().stream()
+                .anyMatch(type -> ALLOCATION_SAMPLE.equals(type.getName())), ALLOCATION_SAMPLE + " is not available");
+
+        BaseMap baseMap = HeadlessFx.createMap(1280, 800, 14, 50.85, 4.35);
+        // loads the tiles, and lets the drag path get compiled
+        drag(baseMap, WARMUP_TURNS);
+
+        Path file = Files.createTempFile("gluonmaps-pan", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable(ALLOCATION_SAMPLE).withStackTrace().with("throttle", "off");
+                // custom events are enabled by default, but the events of the map are not what is measured
+                FlightRecorder.getFlightRecorder().getEventTypes().stream()
+                        .filter(type -> type.getCategoryNames().contains(MAPS_CATEGORY))
+                        .forEach(type -> recording.disable(type.getName()));
+                recording.start();
+                drag(baseMap, RECORDED_TURNS);
+                allocateControl();
+                recording.stop();
+                recording.dump(file);
+            }
+            long thread = Thread.currentThread().getId();
+            List<String> mapAllocations = new ArrayList<>();
+            boolean controlSampled = false;
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                if (!ALLOCATION_SAMPLE.equals(event.getEventType().getName()) || event.getThread() == null ||
+                        event.getThread().getJavaThreadId() != thread || event.getStackTrace() == null) {
+                    continue;
+                }
+                RecordedStackTrace stackTrace = event.getStackTrace();
+                if (isControl(stackTrace)) {
+                    controlSampled = true;
+                    continue;
+                }
+                RecordedFrame mapFrame = mapFrame(stackTrace);
+                if (mapFrame != null || stackTrace.isTruncated()) {
+                    // a truncated stack trace may have lost the frames of the map
+                    mapAllocations.add(event.getClass("objectClass").getName() + " at " +
+                            describe(stackTrace.getFrames().get(0)) + ", for " +
+                            (mapFrame == null ? "a truncated stack trace" : describe(mapFrame)));
+                }
+            }
+            assertTrue(controlSampled, "The recording has no samples of the control allocations");
+            assertTrue(mapAllocations.isEmpty(), "Dragging allocates: " + mapAllocations);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // drags the map in turns along the same circle, narrower than a tile, so once
+    // the tiles around the view are shown, no tile has to be added or removed;
+    // like a mouse drag, that moves the map, followed by the layout of a pulse
+    private static void drag(BaseMap baseMap, int turns) {
+        for (int step = 0; step < turns * STEPS_PER_TURN; step++) {
+            double angle = 2 * Math.PI * (step % STEPS_PER_TURN) / STEPS_PER_TURN;
+            baseMap.move(STEP * Math.cos(angle), STEP * Math.sin(angle));
+            baseMap.layout();
+        }
+    }
+
+    private static void allocateControl() {
+        control = new Object[1024];
+        for (int k = 0; k < 256 * 1024; k++) {
+            control[k % control.length] = new long[16];
+        }
+    }
+
+    private static boolean isControl(RecordedStackTrace stackTrace) {
+        return stackTrace.getFrames().stream().anyMatch(frame -> frame.isJavaFrame() &&
+                frame.getMethod().getType().getName().equals(PanAllocationTest.class.getName()) &&
+                frame.getMethod().getName().equals("allocateControl"));
+    }
+
+    // the innermost frame of the map, so an allocation made by JavaFX on behalf of the map counts as well
+    private static RecordedFrame mapFrame(RecordedStackTrace stackTrace) {
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            if (!frame.isJavaFrame()) {
+                continue;
+            }
+            String type = frame.getMethod().getType().getName();
+            if (type.startsWith(MAPS_PACKAGE) && !type.startsWith(PanAllocationTest.class.getName())) {
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.gluonhq.impl.maps;
+
+import com.gluonhq.maps.tile.TileRetriever;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A tile retriever that returns the same blank image for every tile right
+ * away, so the tests of the map don't need the network or the disk. It is
+ * registered as a service, so the maps of the tests use it. A test can make
+ * it load tiles in another way with {@link #setLoader}.
+ */
+public class StubTileRetriever implements TileRetriever {
+
+    private static final CompletableFuture<Image> TILE = CompletableFuture.completedFuture(new WritableImage(256, 256));
+
+    private static volatile TileRetriever loader;
+
+    /**
+     * Sets how tiles are loaded, or restores the blank tiles if null.
+     *
+     * @param loader the retriever the tiles are loaded with, or null
+     */
+    static void setLoader(TileRetriever loader) {
+        StubTileRetriever.loader = loader;
+    }
+
+    @Override
+    public CompletableFuture<Image> loadTile(int zoom, long i, long j) {
+        TileRetriever current = loader;
+        return current == null ? TILE : current.loadTile(zoom, i, j);
+    }
+}
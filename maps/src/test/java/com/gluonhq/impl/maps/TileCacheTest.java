@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.gluonhq.impl.maps;
+
+import com.gluonhq.maps.tile.TileCacheStatistics;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TileCacheTest {
+
+    private static final int ZOOM = 3;
+    // the size of a 256x256 tile, which is also charged for a tile while it loads
+    private static final long TILE_SIZE = 256L * 256 * 4;
+
+    @BeforeAll
+    static void startPlatform() throws InterruptedException {
+        HeadlessFx.start();
+    }
+
+    // loads are shared by all maps while they are pending, so none is left for the next test
+    private final List<CompletableFuture<Image>> pending = new ArrayList<>();
+
+    @AfterEach
+    void restoreTiles() throws Exception {
+        StubTileRetriever.setLoader(null);
+        HeadlessFx.call(() -> {
+            pending.forEach(future -> future.cancel(false));
+            return null;
+        });
+    }
+
+    @Test
+    void loadedTilesAreChargedForTheirImage() throws Exception {
+        // the tiles of the other levels, such as those of the initial zoom, are loaded right away
+        Image blank = new WritableImage(256, 256);
+        StubTileRetriever.setLoader((zoom, i, j) -> {
+            if (zoom != ZOOM) {
+                return CompletableFuture.completedFuture(blank);
+            }
+            CompletableFuture<Image> future = new CompletableFuture<>();
+            pending.add(future);
+            return future;
+        });
+        BaseMap baseMap = HeadlessFx.call(() -> HeadlessFx.createMap(800, 600, ZOOM, 50.85, 4.35));
+
+        // the loads of the tiles that left the view when the map was centered were cancelled
+        List<CompletableFuture<Image>> loads = HeadlessFx.call(() -> new ArrayList<>(pending));
+        long cancelled = loads.stream().filter(CompletableFuture::isCancelled).count();
+        TileCacheStatistics loading = HeadlessFx.call(baseMap::getTileCacheStatistics);
+        assertTrue(loads.size() > cancelled);
+        assertEquals((loading.getEntryCount() - cancelled) * TILE_SIZE, loading.getSize());
+
+        long expected = (loading.getEntryCount() - loads.size()) * TILE_SIZE;
+        for (int k = 0; k < loads.size(); k++) {
+            Image image = k % 2 == 0 ? new WritableImage(128, 64) : new WritableImage(512, 512);
+            if (loads.get(k).complete(image)) {
+                expected += (long) image.getWidth() * (long) image.getHeight() * 4;
+            }
+        }
+        long loaded = expected;
+        assertTrue(HeadlessFx.await(() -> baseMap.getTileCacheStatistics().getSize() == loaded),
+                () -> "Expected " + loaded + " bytes: " + baseMap.getTileCacheStatistics());
+    }
+
+    @Test
+    void failedTilesAreNotCharged() throws Exception {
+        StubTileRetriever.setLoader((zoom, i, j) -> CompletableFuture.failedFuture(new IOException("Offline")));
+        BaseMap baseMap = HeadlessFx.call(() -> HeadlessFx.createMap(800, 600, ZOOM, 50.85, 4.35));
+
+        assertTrue(HeadlessFx.await(() -> baseMap.getTileCacheStatistics().getSize() == 0),
+                () -> "Expected no bytes: " + baseMap.getTileCacheStatistics());
+        assertTrue(HeadlessFx.call(baseMap::getTileCacheStatistics).getEntryCount() > 0);
+    }
+
+    @Test
+    void tilesShowingTheImageOfAnAncestorAreNotCharged() throws Exception {
+        Image blank = new WritableImage(256, 256);
+        AtomicInteger failed = new AtomicInteger();
+        StubTileRetriever.setLoader((zoom, i, j) -> {
+            if (zoom != ZOOM) {
+                return CompletableFuture.completedFuture(blank);
+            }
+            failed.incrementAndGet();
+            return CompletableFuture.failedFuture(new IOException("Not found"));
+        });
+        BaseMap baseMap = HeadlessFx.call(() -> HeadlessFx.createMap(800, 600, ZOOM, 50.85, 4.35));
+
+        // only the ancestors, that have the images, are charged
+        assertTrue(HeadlessFx.await(() -> {
+            TileCacheStatistics statistics = baseMap.getTileCacheStatistics();
+            return statistics.getSize() == (statistics.getEntryCount() - failed.get()) * TILE_SIZE;
+        }), () -> failed.get() + " failed tiles: " + baseMap.getTileCacheStatistics());
+    }
+}
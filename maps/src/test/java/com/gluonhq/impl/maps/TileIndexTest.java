@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.gluonhq.impl.maps;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TileIndexTest {
+
+    // the capacity of a new index, before it grows
+    private static final int CAPACITY = 16;
+
+    @Test
+    void putReplacesAndReturnsPreviousValue() {
+        TileIndex<String> index = new TileIndex<>();
+        long key = TileIndex.key(3, 5, 7);
+        assertNull(index.put(key, "a"));
+        assertEquals("a", index.put(key, "b"));
+        assertEquals("b", index.get(key));
+        assertEquals(1, index.size());
+        assertEquals("b", index.remove(key));
+        assertNull(index.remove(key));
+        assertTrue(index.isEmpty());
+    }
+
+    @Test
+    void removeShiftsBackAClusterThatWrapsAround() {
+        // three keys at home in the last slot, so they wrap around to the first slots,
+        // and two keys at home in the first slot, that are pushed behind them
+        List<Long> last = keysWithHome(CAPACITY - 1, 3);
+        List<Long> first = keysWithHome(0, 2);
+        List<Long> cluster = List.of(last.get(0), last.get(1), first.get(0), last.get(2), first.get(1));
+        for (long removed : cluster) {
+            TileIndex<Long> index = new TileIndex<>();
+            cluster.forEach(key -> index.put(key, key));
+            assertEquals(removed, index.remove(removed));
+            assertNull(index.get(removed));
+            for (long key : cluster) {
+                if (key != removed) {
+                    assertEquals(key, index.get(key), "Lost " + key + " after removing " + removed);
+                }
+            }
+            assertEquals(cluster.size() - 1, index.size());
+        }
+    }
+
+    @Test
+    void matchesHashMapUnderRandomPutsAndRemoves() {
+        Random random = new Random(42);
+        TileIndex<Integer> index = new TileIndex<>();
+        Map<Long, Integer> expected = new HashMap<>();
+        // few distinct keys, so entries are often removed and put again, and removals shift the probe chains back
+        for (int step = 0; step < 200_000; step++) {
+            long key = TileIndex.key(random.nextInt(3), random.nextInt(8), random.nextInt(8));
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), index.remove(key));
+            } else {
+                assertEquals(expected.put(key, step), index.put(key, step));
+            }
+            assertEquals(expected.size(), index.size());
+        }
+        expected.forEach((key, value) -> assertEquals(value, index.get(key)));
+        Map<Long, Integer> visited = new HashMap<>();
+        index.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    void keyRoundTrips() {
+        long max = (1L << 28) - 1;
+        for (long[] tile : new long[][] {{0, 0, 0}, {1, 1, 0}, {14, 8_500, 5_500}, {28, max, max}, {28, 0, max}}) {
+            long key = TileIndex.key((int) tile[0], tile[1], tile[2]);
+            assertEquals(tile[0], TileIndex.zoom(key));
+            assertEquals(tile[1], TileIndex.i(key));
+            assertEquals(tile[2], TileIndex.j(key));
+        }
+    }
+
+    // finds tile keys whose home slot, in a new index, is the given slot
+    private static List<Long> keysWithHome(int slot, int count) {
+        List<Long> keys = new ArrayList<>();
+        for (long i = 0; keys.size() < count; i++) {
+            long key = TileIndex.key(10, i, 0);
+            if (home(key) == slot) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    // mirrors the hash of TileIndex
+    private static int home(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (CAPACITY - 1);
+    }
+}
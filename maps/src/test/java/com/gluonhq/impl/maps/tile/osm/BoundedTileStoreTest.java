@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.gluonhq.impl.maps.tile.osm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedTileStoreTest {
+
+    private static final byte[] TILE = new byte[100];
+
+    @TempDir
+    Path root;
+
+    @Test
+    void evictionKeepsATileWrittenAgainMeanwhile() throws IOException {
+        List<BoundedTileStore> bounded = new ArrayList<>(1);
+        PackedTileStore packed = new PackedTileStore(root) {
+            @Override
+            public synchronized void remove(int zoom, long i, long j) throws IOException {
+                super.remove(zoom, i, j);
+                if (j == 0) {
+                    // the next victim is downloaded again while the first one is removed
+                    bounded.get(0).write(10, 0, 1, TILE, null);
+                }
+            }
+        };
+        List<Runnable> evictions = new ArrayList<>();
+        BoundedTileStore store = new BoundedTileStore(packed, Long.MAX_VALUE, 4, evictions::add);
+        bounded.add(store);
+        store.open();
+        for (int j = 0; j < 5; j++) {
+            store.write(10, 0, j, TILE, null);
+        }
+
+        // evicts the two oldest tiles, to get back under 90% of 4 tiles
+        assertEquals(1, evictions.size());
+        evictions.get(0).run();
+        assertFalse(packed.contains(10, 0, 0));
+        assertTrue(store.contains(10, 0, 1));
+        assertTrue(packed.contains(10, 0, 1));
+        assertEquals(4, packed.size());
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.gluonhq.impl.maps.tile.osm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PackedTileStoreTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void tornTailIsTruncatedOnOpen() throws IOException {
+        PackedTileStore store = open();
+        store.write(10, 1, 1, tile(1, 1000), null);
+        store.write(10, 1, 2, tile(2, 1000), new TileMetadata("\"etag\"", null, 1234));
+        Path data = root.resolve("tiles-1.pack");
+        long complete = Files.size(data);
+
+        // a crash in the middle of appending a record
+        ByteBuffer record = PackedTileStore.encodeRecord(10, 1, 3, tile(3, 1000), null);
+        record.limit(record.limit() / 2);
+        try (FileChannel out = FileChannel.open(data, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            out.write(record);
+        }
+
+        store = open();
+        assertEquals(complete, Files.size(data));
+        assertEquals(2, store.size());
+        assertFalse(store.contains(10, 1, 3));
+        assertArrayEquals(tile(1, 1000), read(store, 10, 1, 1));
+        assertArrayEquals(tile(2, 1000), read(store, 10, 1, 2));
+        assertEquals("\"etag\"", store.readMetadata(10, 1, 2).getETag());
+
+        // records appended after the truncation are found again
+        store.write(10, 1, 3, tile(3, 1000), null);
+        store = open();
+        assertEquals(3, store.size());
+        assertArrayEquals(tile(3, 1000), read(store, 10, 1, 3));
+    }
+
+    @Test
+    void recordWithBadChecksumAtTheEndIsTruncatedOnOpen() throws IOException {
+        PackedTileStore store = open();
+        store.write(10, 1, 1, tile(1, 1000), null);
+        Path data = root.resolve("tiles-1.pack");
+        long complete = Files.size(data);
+        store.write(10, 1, 2, tile(2, 1000), null);
+
+        // the last byte of the last record was not written
+        try (FileChannel out = FileChannel.open(data, StandardOpenOption.WRITE)) {
+            out.write(ByteBuffer.wrap(new byte[] {(byte) ~tile(2, 1000)[999]}), out.size() - 1);
+        }
+
+        store = open();
+        assertEquals(complete, Files.size(data));
+        assertEquals(1, store.size());
+        assertArrayEquals(tile(1, 1000), read(store, 10, 1, 1));
+        assertNull(store.read(10, 1, 2));
+    }
+
+    @Test
+    void compactionKeepsTheLiveTiles() throws IOException {
+        PackedTileStore store = open();
+        for (int j = 0; j < 10; j++) {
+            store.write(12, 7, j, tile(j, 10_000), null);
+        }
+        store.remove(12, 7, 9);
+        // replaced records pile up until they take more than 8 MB
+        int replacements = 200;
+        for (int k = 0; k < replacements; k++) {
+            store.write(12, 7, 0, tile(100 + k, 64 * 1024), null);
+        }
+
+        // the file of the previous generation may only be deleted later, while it is mapped on Windows
+        Path data = root.resolve("tiles-2.pack");
+        assertEquals(2, generation(data));
+        assertTrue(Files.size(data) < 8 * 1024 * 1024, "The data file was not compacted: " + Files.size(data));
+        assertTiles(store, replacements);
+
+        // the index and the data file of the new generation are used when the store is opened again
+        store = open();
+        assertEquals(2, generation(data));
+        assertFalse(Files.exists(root.resolve("tiles-3.pack")));
+        assertTiles(store, replacements);
+        store.write(12, 7, 9, tile(9, 10_000), null);
+        store = open();
+        assertEquals(10, store.size());
+        assertArrayEquals(tile(9, 10_000), read(store, 12, 7, 9));
+    }
+
+    @Test
+    void readsTilesAppendedSinceTheFileWasMapped() throws IOException {
+        PackedTileStore store = open();
+        for (int j = 0; j < 200; j++) {
+            store.write(14, 3, j, tile(j, 5_000 + j), null);
+            assertArrayEquals(tile(j, 5_000 + j), read(store, 14, 3, j));
+        }
+        for (int j = 0; j < 200; j++) {
+            assertArrayEquals(tile(j, 5_000 + j), read(store, 14, 3, j));
+        }
+    }
+
+    @Test
+    void emptyTileIsRejected() throws IOException {
+        PackedTileStore store = open();
+        store.write(10, 1, 1, tile(1, 1000), null);
+        assertThrows(IOException.class, () -> store.write(10, 1, 2, new byte[0], null));
+        assertFalse(store.contains(10, 1, 2));
+
+        // the tiles are found again when the store is opened
+        PackedTileStore reopened = open();
+        assertEquals(1, reopened.size());
+        assertArrayEquals(tile(1, 1000), read(reopened, 10, 1, 1));
+    }
+
+    private static void assertTiles(PackedTileStore store, int replacements) throws IOException {
+        assertEquals(9, store.size());
+        assertArrayEquals(tile(100 + replacements - 1, 64 * 1024), read(store, 12, 7, 0));
+        for (int j = 1; j < 9; j++) {
+            assertArrayEquals(tile(j, 10_000), read(store, 12, 7, j));
+        }
+        assertFalse(store.contains(12, 7, 9));
+    }
+
+    // the generation in the header of a data file
+    private static long generation(Path data) throws IOException {
+        try (FileChannel in = FileChannel.open(data, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(PackedTileStore.DATA_HEADER);
+            in.read(header, 0);
+            header.flip();
+            assertEquals(PackedTileStore.DATA_MAGIC, header.getInt());
+            assertEquals(PackedTileStore.VERSION, header.getInt());
+            return header.getLong();
+        }
+    }
+
+    private PackedTileStore open() {
+        PackedTileStore store = new PackedTileStore(root);
+        store.open();
+        return store;
+    }
+
+    private static byte[] read(PackedTileStore store, int zoom, long i, long j) throws IOException {
+        try (InputStream in = store.read(zoom, i, j)) {
+            return in == null ? null : in.readAllBytes();
+        }
+    }
+
+    // the content of a fake tile, that differs for every seed
+    private static byte[] tile(int seed, int length) {
+        byte[] data = new byte[length];
+        Arrays.fill(data, (byte) seed);
+        data[0] = (byte) (seed >> 8);
+        return data;
+    }
+}
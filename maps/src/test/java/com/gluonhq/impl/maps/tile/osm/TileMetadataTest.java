@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.gluonhq.impl.maps.tile.osm;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpHeaders;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TileMetadataTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Test
+    void ageIsSubtractedFromTheLifetime() {
+        assertEquals(NOW + 7_000_000, expires("Cache-Control", "max-age=7200", "Age", "200"));
+        assertEquals(NOW, expires("Cache-Control", "max-age=7200", "Age", "9000"));
+        assertEquals(NOW + 3_000_000, expires("Date", "Tue, 14 Nov 2023 22:13:20 GMT",
+                "Expires", "Tue, 14 Nov 2023 23:13:20 GMT", "Age", "600"));
+    }
+
+    @Test
+    void largeMaxAgeDoesNotOverflow() {
+        assertEquals(NOW + 1000 * (1L << 31), expires("Cache-Control", "max-age=99999999999999999999"));
+        assertEquals(NOW + 1000 * (1L << 31), expires("Cache-Control", "max-age=9223372036854775807"));
+        assertEquals(NOW, expires("Cache-Control", "max-age=-1"));
+    }
+
+    private static long expires(String... headers) {
+        Map<String, List<String>> map = new HashMap<>();
+        for (int k = 0; k < headers.length; k += 2) {
+            map.put(headers[k], List.of(headers[k + 1]));
+        }
+        return TileMetadata.of(HttpHeaders.of(map, (name, value) -> true), NOW, null).getExpires();
+    }
+}
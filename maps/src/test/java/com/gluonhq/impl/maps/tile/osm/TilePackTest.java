@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.gluonhq.impl.maps.tile.osm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TilePackTest {
+
+    // the position of the length in the header of a record
+    private static final int LENGTH_POSITION = 24;
+
+    @TempDir
+    Path root;
+
+    @Test
+    void recordLengthIsCheckedBeforeItIsRead() throws IOException {
+        Path pack = root.resolve("region.pack");
+        try (TilePack.Writer writer = new TilePack.Writer(pack)) {
+            writer.write(10, 1, 1, new byte[1000], null);
+            writer.write(10, 1, 2, new byte[1000], null);
+            writer.commit();
+        }
+        List<Long> visited = new ArrayList<>();
+        TilePack.read(pack, (zoom, i, j, data, metadata) -> visited.add(j));
+        assertEquals(List.of(1L, 2L), visited);
+
+        // a length past the end of the file, and one that doesn't fit in memory
+        long second = PackedTileStore.DATA_HEADER + PackedTileStore.RECORD_HEADER + 1000;
+        for (int length : new int[] {1 << 20, Integer.MAX_VALUE}) {
+            setLength(pack, second, length);
+            visited.clear();
+            assertThrows(IOException.class, () -> TilePack.read(pack, (zoom, i, j, data, metadata) -> visited.add(j)));
+            assertEquals(List.of(1L), visited);
+        }
+    }
+
+    private static void setLength(Path pack, long record, int length) throws IOException {
+        try (FileChannel channel = FileChannel.open(pack, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, length), record + LENGTH_POSITION);
+        }
+    }
+}
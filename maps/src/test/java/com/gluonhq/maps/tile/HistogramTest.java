@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2026, Gluon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL GLUON BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.gluonhq.maps.tile;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistogramTest {
+
+    @Test
+    void upperBoundIsInItsBucketAndTheNextValueIsInTheNextOne() {
+        int buckets = new Histogram().getBucketCounts().length;
+        for (int b = 0; b < buckets; b++) {
+            long upper = Histogram.upperBound(b);
+            assertEquals(b, bucketOf(upper), "Bucket of the upper bound of bucket " + b);
+            if (b < buckets - 1) {
+                assertEquals(b + 1, bucketOf(upper + 1), "Bucket of the value after the upper bound of bucket " + b);
+            }
+        }
+        assertEquals(Long.MAX_VALUE, Histogram.upperBound(buckets - 1));
+    }
+
+    @Test
+    void upperBoundIsWithinAQuarterOfTheValue() {
+        Random random = new Random(42);
+        for (int k = 0; k < 100_000; k++) {
+            long value = random.nextLong() >>> (1 + random.nextInt(63));
+            long upper = Histogram.upperBound(bucketOf(value));
+            assertTrue(upper >= value && upper - value <= value / 4, "Upper bound " + upper + " of " + value);
+        }
+    }
+
+    @Test
+    void negativeValuesAreRecordedAsZero() {
+        Histogram histogram = new Histogram();
+        histogram.record(-5);
+        assertEquals(1, histogram.getBucketCounts()[0]);
+        assertEquals(0, histogram.getSum());
+    }
+
+    @Test
+    void percentileIsTheUpperBoundOfItsBucket() {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+        assertEquals(Histogram.upperBound(bucketOf(50)), histogram.getPercentile(0.5));
+        assertEquals(Histogram.upperBound(bucketOf(99)), histogram.getPercentile(0.99));
+        assertEquals(Histogram.upperBound(bucketOf(100)), histogram.getPercentile(1));
+        assertEquals(50.5, histogram.getMean());
+    }
+
+    // returns the bucket a value is recorded in
+    private static int bucketOf(long value) {
+        Histogram histogram = new Histogram();
+        histogram.record(value);
+        long[] counts = histogram.getBucketCounts();
+        for (int b = 0; b < counts.length; b++) {
+            if (counts[b] == 1) {
+                return b;
+            }
+        }
+        throw new AssertionError("No bucket for " + value);
+    }
+}